@@ -0,0 +1,113 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds synthetic calendars for the benchmarks. Everything is driven by the {@code Random} passed
+ * in, so a fixed seed gives the same calendar on every run.
+ */
+final class CalendarGenerator {
+  // Events start on a quarter hour and last between 15 minutes and 2 hours.
+  private static final int SLOT_MINUTES = 15;
+  private static final int MAX_SLOTS_PER_EVENT = 8;
+
+  private CalendarGenerator() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns {@code count} distinct attendee names.
+   */
+  static List<String> people(int count) {
+    List<String> people = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      people.add("Person " + i);
+    }
+    return people;
+  }
+
+  /**
+   * Returns {@code count} events, each attended by {@code attendeesPerEvent} people drawn from
+   * {@code people}.
+   */
+  static List<Event> events(Random random, List<String> people, int count, int attendeesPerEvent) {
+    List<Event> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      events.add(new Event("Event " + i, range(random), pick(random, people, attendeesPerEvent)));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a request for {@code attendees} mandatory and {@code optionalAttendees} optional people
+   * drawn from {@code people}, none of them picked twice.
+   */
+  static MeetingRequest request(Random random, List<String> people, int attendees,
+      int optionalAttendees, long duration) {
+    List<String> picked = pick(random, people, attendees + optionalAttendees);
+    MeetingRequest request = new MeetingRequest(picked.subList(0, attendees), duration);
+    for (String attendee : picked.subList(attendees, picked.size())) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  /**
+   * Returns {@code count} random ranges within the day.
+   */
+  static List<TimeRange> ranges(Random random, int count) {
+    List<TimeRange> ranges = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      ranges.add(range(random));
+    }
+    return ranges;
+  }
+
+  private static TimeRange range(Random random) {
+    int slotsPerDay = TimeRange.WHOLE_DAY.duration() / SLOT_MINUTES;
+    int start = random.nextInt(slotsPerDay) * SLOT_MINUTES;
+    int duration = (1 + random.nextInt(MAX_SLOTS_PER_EVENT)) * SLOT_MINUTES;
+    return TimeRange.fromStartDuration(
+        start, Math.min(duration, TimeRange.WHOLE_DAY.end() - start));
+  }
+
+  private static List<String> pick(Random random, List<String> people, int count) {
+    if (count >= people.size()) {
+      List<String> all = new ArrayList<>(people);
+      Collections.shuffle(all, random);
+      return all;
+    }
+
+    Set<String> picked = new HashSet<>();
+    List<String> result = new ArrayList<>(count);
+    while (result.size() < count) {
+      String person = people.get(random.nextInt(people.size()));
+      if (picked.add(person)) {
+        result.add(person);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeIndex;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code FindMeetingQuery} over synthetic calendars of different shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  private static final long SEED = 42;
+  private static final int PEOPLE = 1000;
+  private static final long DURATION_30_MINUTES = 30;
+
+  @Param({"1000", "10000", "100000"})
+  public int events;
+
+  @Param({"1", "5"})
+  public int attendeesPerEvent;
+
+  @Param({"2", "10", "200"})
+  public int requestSize;
+
+  @Param({"0", "5"})
+  public int optionalAttendees;
+
+  private List<Event> calendar;
+  private AttendeeIndex index;
+  private MeetingRequest request;
+  private FindMeetingQuery query;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(SEED);
+    List<String> people = CalendarGenerator.people(PEOPLE);
+    calendar = CalendarGenerator.events(random, people, events, attendeesPerEvent);
+    index = new AttendeeIndex(calendar);
+    request = CalendarGenerator.request(
+        random, people, requestSize, optionalAttendees, DURATION_30_MINUTES);
+    query = new FindMeetingQuery();
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryScanningEvents() {
+    return query.query(calendar, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndex() {
+    return query.query(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndexBitmaps() {
+    return query.queryWithBitmaps(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryWithOptionalAttendeesScanningEvents() {
+    return query.queryWithOptionalAttendees(calendar, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryWithOptionalAttendeesIndex() {
+    return query.queryWithOptionalAttendees(index, request);
+  }
+}
@@ -0,0 +1,127 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendanceSlot;
+import com.google.sps.AttendeeIndex;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.MinuteOracle;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times {@code FindMeetingQuery} from a thousand to a million events, with the number of people
+ * growing along so that everyone keeps about ten events a day. Before anything is timed, every
+ * scheduler's answer is checked against {@link MinuteOracle}, so a faster algorithm cannot show up
+ * here with wrong answers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryScaleBenchmark {
+  private static final long SEED = 42;
+  private static final int EVENTS_PER_PERSON = 10;
+  private static final int ATTENDEES_PER_EVENT = 2;
+  private static final int REQUEST_SIZE = 3;
+  private static final int OPTIONAL_ATTENDEES = 8;
+  private static final int MIN_OPTIONAL = 4;
+  private static final long DURATION_30_MINUTES = 30;
+
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int events;
+
+  private List<Event> calendar;
+  private AttendeeIndex index;
+  private MeetingRequest request;
+  private FindMeetingQuery query;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(SEED);
+    List<String> people = CalendarGenerator.people(events / EVENTS_PER_PERSON);
+    calendar = CalendarGenerator.events(random, people, events, ATTENDEES_PER_EVENT);
+    index = new AttendeeIndex(calendar);
+    request = CalendarGenerator.request(
+        random, people, REQUEST_SIZE, OPTIONAL_ATTENDEES, DURATION_30_MINUTES);
+    query = new FindMeetingQuery();
+
+    MinuteOracle oracle = new MinuteOracle(calendar, request);
+    check("query", oracle.query(), queryScanningEvents());
+    check("query on the index", oracle.query(), queryIndex());
+    check("queryWithOptionalAttendees", oracle.queryWithOptionalAttendees(),
+        queryWithOptionalAttendeesScanningEvents());
+    check("queryWithOptionalAttendees on the index", oracle.queryWithOptionalAttendees(),
+        queryWithOptionalAttendeesIndex());
+    check("queryWithMinimumOptional", oracle.queryWithMinimumOptional(MIN_OPTIONAL),
+        queryWithMinimumOptional());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryScanningEvents() {
+    return query.query(calendar, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndex() {
+    return query.query(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndexBitmaps() {
+    return query.queryWithBitmaps(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryWithOptionalAttendeesScanningEvents() {
+    return query.queryWithOptionalAttendees(calendar, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryWithOptionalAttendeesIndex() {
+    return query.queryWithOptionalAttendees(index, request);
+  }
+
+  @Benchmark
+  public List<AttendanceSlot> queryWithMinimumOptional() {
+    return query.queryWithMinimumOptional(index, request, MIN_OPTIONAL);
+  }
+
+  private static void check(String what, List<?> expected, Collection<?> actual) {
+    if (!expected.equals(new ArrayList<>(actual))) {
+      throw new IllegalStateException(
+          what + " disagrees with the oracle: expected " + expected + " but got " + actual);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Intervals;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@code TimeRange} operations the scheduler leans on, next to their packed
+ * {@code Intervals} counterparts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeRangeBenchmark {
+  private static final long SEED = 42;
+
+  @Param({"1000", "100000"})
+  public int ranges;
+
+  private List<TimeRange> unsorted;
+  private long[] packed;
+  private TimeRange probe;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(SEED);
+    unsorted = CalendarGenerator.ranges(random, ranges);
+    packed = Intervals.fromTimeRanges(unsorted);
+    probe = TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(12, 0), 60);
+  }
+
+  @Benchmark
+  public int overlaps() {
+    int count = 0;
+    for (TimeRange range : unsorted) {
+      if (probe.overlaps(range)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int contains() {
+    int count = 0;
+    for (TimeRange range : unsorted) {
+      if (range.contains(probe)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public List<TimeRange> sortByStart() {
+    List<TimeRange> copy = new ArrayList<>(unsorted);
+    Collections.sort(copy, TimeRange.ORDER_BY_START);
+    return copy;
+  }
+
+  @Benchmark
+  public List<TimeRange> sortByEnd() {
+    List<TimeRange> copy = new ArrayList<>(unsorted);
+    Collections.sort(copy, TimeRange.ORDER_BY_END);
+    return copy;
+  }
+
+  @Benchmark
+  public long[] sortPacked() {
+    long[] copy = packed.clone();
+    Intervals.sort(copy, copy.length);
+    return copy;
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A range of time in which a meeting can start anywhere and have the same number of optional
+ * attendees free for all of it. The meeting may start at any minute from {@code getWhen().start()}
+ * up to {@code getWhen().end()} minus its duration. Attendance slots are considered read-only.
+ */
+public final class AttendanceSlot {
+  private final TimeRange when;
+  private final int optionalFree;
+
+  public AttendanceSlot(TimeRange when, int optionalFree) {
+    this.when = when;
+    this.optionalFree = optionalFree;
+  }
+
+  /**
+   * Returns the range the meeting fits in.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns how many optional attendees are free for the whole meeting.
+   */
+  public int getOptionalFree() {
+    return optionalFree;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s with %d optional", when, optionalFree);
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() * 31 + optionalFree;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof AttendanceSlot && ((AttendanceSlot) other).when.equals(when)
+        && ((AttendanceSlot) other).optionalFree == optionalFree;
+  }
+}
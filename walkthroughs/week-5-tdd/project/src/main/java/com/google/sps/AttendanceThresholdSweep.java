@@ -0,0 +1,148 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds where a meeting can start so that every mandatory attendee and at least a given number of
+ * optional attendees are free for all of it.
+ *
+ * <p>The sweep works on start minutes rather than on the meeting itself. An optional attendee
+ * busy from {@code a} to {@code b} cannot make a meeting of length {@code d} that starts anywhere
+ * from {@code a - d + 1} up to {@code b}, so each busy interval becomes one such blocked range of
+ * starts. Likewise a mandatory gap from {@code g} to {@code h} allows the starts {@code g} to
+ * {@code h - d}. All of those ranges are turned into sorted +1/-1 events and a single pass with
+ * two counters reads off, for every minute, whether it is inside a gap and how many optional
+ * attendees it blocks. That is O(n log n) in the number of intervals, however many optional
+ * attendees there are.
+ */
+final class AttendanceThresholdSweep {
+  // The low two bits of each event say what it does; the rest is the minute it happens at.
+  private static final int GAP_END = 0;
+  private static final int BLOCK_END = 1;
+  private static final int BLOCK_START = 2;
+  private static final int GAP_START = 3;
+
+  private AttendanceThresholdSweep() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the slots in which at least {@code minimum} of the optional attendees are free for a
+   * meeting of {@code meetingLength} minutes, ordered by start, with each run of starts that has
+   * the same count reported once. {@code gaps} are the merged gaps of the mandatory attendees and
+   * each entry of {@code optionalBusy} holds the merged busy intervals of one optional attendee.
+   * Neighbouring slots overlap by all but one minute of the meeting, since a meeting starting at
+   * the end of one run mostly covers the same time as one starting at the next.
+   */
+  static List<AttendanceSlot> slots(
+      long[] gaps, List<long[]> optionalBusy, int meetingLength, int minimum) {
+    // An empty meeting still needs its start minute.
+    int duration = Math.max(1, meetingLength);
+    long[] events = new long[8];
+    int count = 0;
+    for (long gap : gaps) {
+      int lastStart = Intervals.end(gap) - duration;
+      if (lastStart >= Intervals.start(gap)) {
+        events = ensureCapacity(events, count + 2);
+        events[count++] = event(Intervals.start(gap), GAP_START);
+        events[count++] = event(lastStart + 1, GAP_END);
+      }
+    }
+    for (long[] busy : optionalBusy) {
+      // Widening can make neighbouring intervals of one person overlap, and a person must only be
+      // counted once, so they are merged on the way.
+      int blockStart = -1;
+      int blockEnd = -1;
+      for (long interval : busy) {
+        int start = Intervals.start(interval) - duration + 1;
+        int end = Intervals.end(interval);
+        if (blockEnd >= start) {
+          blockEnd = Math.max(blockEnd, end);
+          continue;
+        }
+        if (blockStart < blockEnd) {
+          events = ensureCapacity(events, count + 2);
+          events[count++] = event(blockStart, BLOCK_START);
+          events[count++] = event(blockEnd, BLOCK_END);
+        }
+        blockStart = start;
+        blockEnd = end;
+      }
+      if (blockStart < blockEnd) {
+        events = ensureCapacity(events, count + 2);
+        events[count++] = event(blockStart, BLOCK_START);
+        events[count++] = event(blockEnd, BLOCK_END);
+      }
+    }
+    Arrays.sort(events, 0, count);
+
+    List<AttendanceSlot> result = new ArrayList<>();
+    int inGap = 0;
+    int blocked = 0;
+    int runStart = 0;
+    int runFree = -1;
+    for (int i = 0; i < count; ) {
+      int time = time(events[i]);
+      // Everything at the same minute takes effect together.
+      int free = inGap > 0 ? optionalBusy.size() - blocked : -1;
+      for (; i < count && time(events[i]) == time; i++) {
+        switch ((int) (events[i] & 3)) {
+          case GAP_START:
+            inGap++;
+            break;
+          case GAP_END:
+            inGap--;
+            break;
+          case BLOCK_START:
+            blocked++;
+            break;
+          default:
+            blocked--;
+        }
+      }
+      int nextFree = inGap > 0 ? optionalBusy.size() - blocked : -1;
+      if (nextFree == free) {
+        continue;
+      }
+
+      if (runFree >= minimum) {
+        result.add(new AttendanceSlot(
+            TimeRange.fromStartEnd(runStart, time - 1 + duration, false), runFree));
+      }
+      runStart = time;
+      runFree = nextFree;
+    }
+    return result;
+  }
+
+  private static long event(int time, int kind) {
+    // Blocks can start before midnight, and the signed shift keeps those first.
+    return ((long) time << 2) | kind;
+  }
+
+  private static int time(long event) {
+    return (int) (event >> 2);
+  }
+
+  private static long[] ensureCapacity(long[] events, int size) {
+    return size <= events.length
+        ? events
+        : Arrays.copyOf(events, Math.max(size, events.length * 2));
+  }
+}
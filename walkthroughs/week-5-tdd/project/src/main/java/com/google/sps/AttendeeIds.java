@@ -0,0 +1,78 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary that gives every attendee name a small int id, handed out in order from zero, so that
+ * events and requests can store and compare people as ints. Names are never forgotten, which is
+ * fine for a calendar whose set of people only ever grows slowly. Requests, and events that
+ * clients send, can come from anybody and so only {@link #find} names; the names of a client's
+ * event are interned once a store adds it.
+ */
+final class AttendeeIds {
+  private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+
+  // Names by id. Only grown under the class lock; the field is written again after every new name
+  // so that readers who see the id also see the name.
+  private static volatile String[] names = new String[64];
+  private static int count;
+
+  private AttendeeIds() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the id of {@code name}, giving it the next free id if it has none yet.
+   */
+  static int intern(String name) {
+    Integer id = IDS.get(name);
+    return id != null ? id : add(name);
+  }
+
+  /**
+   * Returns the id of {@code name}, or -1 if it was never interned.
+   */
+  static int find(String name) {
+    Integer id = IDS.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the name with id {@code id}.
+   */
+  static String nameOf(int id) {
+    return names[id];
+  }
+
+  private static synchronized int add(String name) {
+    Integer existing = IDS.get(name);
+    if (existing != null) {
+      return existing;
+    }
+
+    String[] table = names;
+    if (count == table.length) {
+      table = Arrays.copyOf(table, count * 2);
+    }
+    table[count] = name;
+    names = table;
+    IDS.put(name, count);
+    return count++;
+  }
+}
@@ -0,0 +1,517 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from each attendee to the time they are busy. The index is kept up to date as events are
+ * added and removed, so a query only has to look at the people it is about instead of every event
+ * in the calendar.
+ *
+ * <p>Readers never lock. Everything they see lives in one immutable state that every change
+ * replaces as a whole, so a query that reads several people at once sees either all of a change or
+ * none of it, and never waits for a writer. The people are kept in a {@link NameTrie}, so a change
+ * copies O(log people) of it plus the calendars it touches. Use an {@link Editor} to make many
+ * changes for the price of one: it copies each calendar it touches once and sorts it once when it
+ * publishes, so building an index of n events costs O(n log n).
+ */
+public final class AttendeeIndex {
+  /** How many minutes each day of {@link #freeIntervals} covers. */
+  static final int DAY_MINUTES = 24 * 60;
+
+  private volatile State state = new State(NameTrie.empty(), 0);
+  // Set for the copies handed out by snapshot(), which must never change.
+  private final boolean frozen;
+
+  /**
+   * Creates an empty index.
+   */
+  public AttendeeIndex() {
+    frozen = false;
+  }
+
+  private AttendeeIndex(State state) {
+    this.state = state;
+    frozen = true;
+  }
+
+  /**
+   * Creates an index holding every event in {@code events}.
+   */
+  public AttendeeIndex(Collection<Event> events) {
+    this();
+    Editor editor = edit();
+    for (Event event : events) {
+      editor.add(event);
+    }
+    editor.publish();
+  }
+
+  /**
+   * Marks every attendee of {@code event} as busy during the event.
+   */
+  public void add(Event event) {
+    add(event.getAttendees(), event.getInterval());
+  }
+
+  /**
+   * Undoes a previous {@link #add} of an equal event. Returns {@code false} if the event was never
+   * added, in which case the index is left unchanged.
+   */
+  public boolean remove(Event event) {
+    return remove(event.getAttendees(), event.getInterval());
+  }
+
+  /**
+   * Removes {@code event} and adds {@code replacement} as a single change, so no reader sees one
+   * without the other. Returns {@code false} if {@code event} was never added, in which case the
+   * index is left unchanged.
+   */
+  public synchronized boolean replace(Event event, Event replacement) {
+    Editor editor = edit();
+    if (!editor.remove(event)) {
+      return false;
+    }
+    editor.add(replacement);
+    editor.publish();
+    return true;
+  }
+
+  /**
+   * Marks every attendee of {@code event} as busy during the event. An index should hold either
+   * {@code Event}s or {@code DatedEvent}s but not both, since their times are counted from
+   * different origins.
+   */
+  public void add(DatedEvent event) {
+    add(event.getAttendees(), event.getInterval());
+  }
+
+  /**
+   * Undoes a previous {@link #add} of an equal dated event. Returns {@code false} if the event was
+   * never added, in which case the index is left unchanged.
+   */
+  public boolean remove(DatedEvent event) {
+    return remove(event.getAttendees(), event.getInterval());
+  }
+
+  private synchronized void add(Set<String> attendees, long interval) {
+    Editor editor = edit();
+    editor.add(attendees, interval);
+    editor.publish();
+  }
+
+  private synchronized boolean remove(Set<String> attendees, long interval) {
+    Editor editor = edit();
+    if (!editor.remove(attendees, interval)) {
+      return false;
+    }
+    editor.publish();
+    return true;
+  }
+
+  /**
+   * Starts a batch of changes on a private copy of the index. Nothing is visible to readers until
+   * {@link Editor#publish}.
+   *
+   * @throws UnsupportedOperationException if this index is a {@link #snapshot}
+   */
+  Editor edit() {
+    if (frozen) {
+      throw new UnsupportedOperationException("A snapshot of an index cannot be changed");
+    }
+    return new Editor(state);
+  }
+
+  /**
+   * Returns a copy of the index as it is now, in O(1). The copy shares this index's state and
+   * cannot be changed; every attempt throws {@code UnsupportedOperationException}.
+   */
+  AttendeeIndex snapshot() {
+    return new AttendeeIndex(state);
+  }
+
+  /**
+   * Returns a number for each of {@code attendees}, in order, that changes whenever their busy time
+   * does. Numbers are never reused for a different busy time, except that everyone without events
+   * gets 0.
+   */
+  long[] versions(Collection<String> attendees) {
+    NameTrie<AttendeeCalendar> calendars = state.calendars;
+    long[] versions = new long[attendees.size()];
+    int i = 0;
+    for (String attendee : attendees) {
+      AttendeeCalendar calendar = calendars.get(attendee);
+      versions[i++] = calendar == null ? 0 : calendar.version;
+    }
+    return versions;
+  }
+
+  /**
+   * Returns when {@code attendee} is busy. The ranges are sorted by start and never touch or
+   * overlap each other. People the index does not know about are never busy.
+   */
+  public List<TimeRange> getBusy(String attendee) {
+    return Collections.unmodifiableList(Intervals.toTimeRanges(busyIntervals(attendee)));
+  }
+
+  /**
+   * Returns when {@code attendee} is busy as a merged array of packed intervals. The array is
+   * shared with the index and must not be changed.
+   */
+  long[] busyIntervals(String attendee) {
+    return busyIntervals(state.calendars, attendee);
+  }
+
+  private static long[] busyIntervals(NameTrie<AttendeeCalendar> calendars, String attendee) {
+    AttendeeCalendar calendar = calendars.get(attendee);
+    return calendar == null ? Intervals.EMPTY : calendar.merged();
+  }
+
+  /**
+   * Returns {@link #busyIntervals(String)} for each of {@code attendees}, all read from the same
+   * state of the index so that callers can then work from the result without going back to it.
+   */
+  Map<String, long[]> busyIntervals(Collection<String> attendees) {
+    NameTrie<AttendeeCalendar> calendars = state.calendars;
+    Map<String, long[]> result = new HashMap<>();
+    for (String attendee : attendees) {
+      result.put(attendee, busyIntervals(calendars, attendee));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the busy minutes of everyone in {@code attendees} combined, as a {@link DayBitmap}. The
+   * array is new and belongs to the caller. Only meaningful for an index holding {@code Event}s.
+   * Each person's merged busy time is set straight into the bitmap, so nothing is kept per person.
+   */
+  long[] busyBits(Collection<String> attendees) {
+    NameTrie<AttendeeCalendar> calendars = state.calendars;
+    long[] bits = new long[DayBitmap.WORDS];
+    for (String attendee : attendees) {
+      AttendeeCalendar calendar = calendars.get(attendee);
+      if (calendar != null) {
+        DayBitmap.setAll(bits, calendar.merged());
+      }
+    }
+    return bits;
+  }
+
+  /**
+   * Returns when each of {@code attendees} is free from the start of day {@code firstDay} to the
+   * end of day {@code lastDay}, as merged packed intervals, all read from the same state of the
+   * index. Day {@code d} covers minutes {@code d * 1440} up to {@code (d + 1) * 1440}, so an index
+   * of {@code Event}s only has day 0 and one of {@code DatedEvent}s counts days from the epoch.
+   * People the index does not know about are free throughout.
+   *
+   * <p>Free time is kept per person and day once worked out. A change only drops the days of the
+   * people it touches, so the same people asked about day after day cost a lookup each rather
+   * than a pass over their events.
+   */
+  Map<String, long[]> freeIntervals(Collection<String> attendees, int firstDay, int lastDay) {
+    NameTrie<AttendeeCalendar> calendars = state.calendars;
+    Map<String, long[]> result = new HashMap<>();
+    for (String attendee : attendees) {
+      AttendeeCalendar calendar = calendars.get(attendee);
+      if (calendar == null) {
+        result.put(attendee, new long[] {Intervals.of(
+            firstDay * DAY_MINUTES, (lastDay + 1) * DAY_MINUTES)});
+      } else if (firstDay == lastDay) {
+        result.put(attendee, calendar.freeOn(firstDay));
+      } else {
+        // The lists of two days touch at midnight when someone is free across it.
+        List<long[]> days = new ArrayList<>();
+        int total = 0;
+        for (int day = firstDay; day <= lastDay; day++) {
+          long[] free = calendar.freeOn(day);
+          days.add(free);
+          total += free.length;
+        }
+        long[] joined = new long[total];
+        int count = 0;
+        for (long[] free : days) {
+          System.arraycopy(free, 0, joined, count, free.length);
+          count += free.length;
+        }
+        result.put(attendee, Arrays.copyOf(joined, Intervals.mergeInPlace(joined, count)));
+      }
+    }
+    return result;
+  }
+
+  /** Everything readers see at one point in time. Never changed once published. */
+  private static final class State {
+    final NameTrie<AttendeeCalendar> calendars;
+    // Counts every change to the index. Each calendar remembers the count of its last change.
+    final long changeCount;
+
+    State(NameTrie<AttendeeCalendar> calendars, long changeCount) {
+      this.calendars = calendars;
+      this.changeCount = changeCount;
+    }
+  }
+
+  /**
+   * A batch of changes to the index, made on a copy and published in one step. An editor belongs
+   * to a single thread, and publishing fails if anything else changed the index in the meantime.
+   *
+   * <p>The intervals of everyone the batch touches are gathered in a working array per person,
+   * appended to as they come and sorted only when a removal or {@link #publish} needs them sorted.
+   */
+  final class Editor {
+    private final State base;
+    private final Map<String, Draft> drafts = new HashMap<>();
+    private long changeCount;
+
+    private Editor(State base) {
+      this.base = base;
+      this.changeCount = base.changeCount;
+    }
+
+    void add(Event event) {
+      add(event.getAttendees(), event.getInterval());
+    }
+
+    boolean remove(Event event) {
+      return remove(event.getAttendees(), event.getInterval());
+    }
+
+    void add(Collection<String> attendees, long interval) {
+      changeCount++;
+      for (String attendee : attendees) {
+        draft(attendee).add(interval, changeCount);
+      }
+    }
+
+    boolean remove(Collection<String> attendees, long interval) {
+      for (String attendee : attendees) {
+        Draft draft = drafts.get(attendee);
+        if (draft != null ? draft.indexOf(interval) < 0 : !baseHas(attendee, interval)) {
+          return false;
+        }
+      }
+
+      changeCount++;
+      for (String attendee : attendees) {
+        draft(attendee).remove(interval, changeCount);
+      }
+      return true;
+    }
+
+    /**
+     * Makes {@code sorted} the busy intervals of {@code attendee}, who must not be in the index
+     * yet. The array must be sorted, may hold overlaps and is taken over by the index. Lets a saved
+     * index be loaded without adding its events one by one.
+     */
+    void load(String attendee, long[] sorted) {
+      if (sorted.length > 0) {
+        drafts.put(attendee, new Draft(null, sorted, sorted.length, ++changeCount));
+      }
+    }
+
+    /**
+     * Makes every change so far visible to readers at once.
+     *
+     * @throws java.util.ConcurrentModificationException if the index was changed by someone else
+     *     since this editor was started
+     */
+    void publish() {
+      NameTrie<AttendeeCalendar> calendars = base.calendars;
+      for (Map.Entry<String, Draft> entry : drafts.entrySet()) {
+        AttendeeCalendar calendar = entry.getValue().toCalendar();
+        calendars = calendar == null
+            ? calendars.without(entry.getKey()) : calendars.with(entry.getKey(), calendar);
+      }
+      synchronized (AttendeeIndex.this) {
+        if (state != base) {
+          throw new ConcurrentModificationException("The index changed while it was being edited");
+        }
+        state = new State(calendars, changeCount);
+      }
+    }
+
+    private boolean baseHas(String attendee, long interval) {
+      AttendeeCalendar calendar = base.calendars.get(attendee);
+      return calendar != null && Arrays.binarySearch(calendar.intervals, interval) >= 0;
+    }
+
+    private Draft draft(String attendee) {
+      Draft draft = drafts.get(attendee);
+      if (draft == null) {
+        AttendeeCalendar calendar = base.calendars.get(attendee);
+        draft = calendar == null
+            ? new Draft(null, new long[4], 0, 0)
+            : new Draft(calendar, Arrays.copyOf(calendar.intervals, calendar.intervals.length + 4),
+                calendar.intervals.length, calendar.version);
+        drafts.put(attendee, draft);
+      }
+      return draft;
+    }
+  }
+
+  /** The intervals of one person while an {@link Editor} changes them. */
+  private static final class Draft {
+    // The calendar this draft started from, or null if the person was not in the index.
+    private final AttendeeCalendar base;
+    private long[] intervals;
+    private int size;
+    private boolean sorted = true;
+    private long version;
+    // The days the changes reach into. They are kept even if the base has nothing cached yet,
+    // since a reader may still cache one of them from the base before the draft is published.
+    private final Set<Integer> changedDays = new HashSet<>();
+
+    /** The first {@code size} of {@code intervals} must be sorted. */
+    Draft(AttendeeCalendar base, long[] intervals, int size, long version) {
+      this.base = base;
+      this.intervals = intervals;
+      this.size = size;
+      this.version = version;
+    }
+
+    void add(long interval, long version) {
+      if (size == intervals.length) {
+        intervals = Arrays.copyOf(intervals, Math.max(4, size * 2));
+      }
+      if (size > 0 && intervals[size - 1] > interval) {
+        sorted = false;
+      }
+      intervals[size++] = interval;
+      changed(interval, version);
+    }
+
+    int indexOf(long interval) {
+      sort();
+      return Math.max(-1, Arrays.binarySearch(intervals, 0, size, interval));
+    }
+
+    /** Removes one copy of {@code interval}, which the draft must hold. */
+    void remove(long interval, long version) {
+      int index = indexOf(interval);
+      System.arraycopy(intervals, index + 1, intervals, index, size - index - 1);
+      size--;
+      changed(interval, version);
+    }
+
+    /** Returns the calendar this draft has become, or {@code null} if it is empty. */
+    AttendeeCalendar toCalendar() {
+      if (size == 0) {
+        return null;
+      }
+      sort();
+      long[] result = size == intervals.length ? intervals : Arrays.copyOf(intervals, size);
+      Map<Integer, long[]> freeByDay = new ConcurrentHashMap<>();
+      if (base != null) {
+        for (Map.Entry<Integer, long[]> entry : base.freeByDay.entrySet()) {
+          if (!changedDays.contains(entry.getKey())) {
+            freeByDay.put(entry.getKey(), entry.getValue());
+          }
+        }
+      }
+      return new AttendeeCalendar(result, version, freeByDay);
+    }
+
+    private void sort() {
+      if (!sorted) {
+        Arrays.sort(intervals, 0, size);
+        sorted = true;
+      }
+    }
+
+    private void changed(long interval, long version) {
+      this.version = version;
+      if (base != null) {
+        int firstDay = Math.floorDiv(Intervals.start(interval), DAY_MINUTES);
+        int lastDay = Math.floorDiv(Intervals.end(interval) - 1, DAY_MINUTES);
+        for (int day = firstDay; day <= lastDay; day++) {
+          changedDays.add(day);
+        }
+      }
+    }
+  }
+
+  /**
+   * The busy time of a single person, which never changes; a change makes a new calendar. The raw
+   * intervals are kept so that events can be removed again, while the merged intervals are only
+   * worked out when they are first asked for. Free time is worked out a day at a time and carried
+   * over to the next calendar for every day the change does not touch.
+   */
+  private static final class AttendeeCalendar {
+    // Past this many days the cache starts over, so that sweeping through years of a dated
+    // calendar does not keep every day of it.
+    private static final int MAX_CACHED_DAYS = 400;
+
+    // Every interval this person is busy for, sorted. Overlaps and duplicates are allowed.
+    final long[] intervals;
+
+    // The index's change count as of the last change to this calendar.
+    final long version;
+
+    // The intervals above with overlaps merged, or null until first asked for. Two readers may
+    // both work them out, which does no harm since the answer is the same.
+    private volatile long[] merged;
+
+    // The free intervals of each day asked for so far, by day.
+    final Map<Integer, long[]> freeByDay;
+
+    AttendeeCalendar(long[] sorted, long version, Map<Integer, long[]> freeByDay) {
+      this.intervals = sorted;
+      this.version = version;
+      this.freeByDay = freeByDay;
+    }
+
+    long[] merged() {
+      long[] result = merged;
+      if (result == null) {
+        long[] copy = intervals.clone();
+        result = Arrays.copyOf(copy, Intervals.mergeInPlace(copy, copy.length));
+        merged = result;
+      }
+      return result;
+    }
+
+    /** Returns when this person is free on {@code day}, see {@link #freeIntervals}. */
+    long[] freeOn(int day) {
+      long[] result = freeByDay.get(day);
+      if (result == null) {
+        int from = day * DAY_MINUTES;
+        int to = from + DAY_MINUTES;
+        long[] all = merged();
+        int first = Intervals.firstEndingAfter(all, from);
+        int last = first;
+        while (last < all.length && Intervals.start(all[last]) < to) {
+          last++;
+        }
+        result = Intervals.complement(Arrays.copyOfRange(all, first, last), from, to, 1);
+        if (freeByDay.size() >= MAX_CACHED_DAYS) {
+          freeByDay.clear();
+        }
+        freeByDay.put(day, result);
+      }
+      return result;
+    }
+  }
+}
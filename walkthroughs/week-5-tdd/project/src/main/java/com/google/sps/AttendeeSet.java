@@ -0,0 +1,210 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only set of attendee names backed by a sorted array of {@link AttendeeIds}. The static
+ * methods work on such arrays directly, which is how the scheduler compares groups of people.
+ */
+final class AttendeeSet extends AbstractSet<String> {
+  static final int[] EMPTY = new int[0];
+
+  private final int[] ids;
+
+  /**
+   * Creates a view of {@code ids}, which must be sorted, free of repeats and never changed again.
+   */
+  AttendeeSet(int[] ids) {
+    this.ids = ids;
+  }
+
+  /**
+   * Returns the ids of {@code names}, interning any that are new, sorted and without repeats. Only
+   * for names that are being stored, since interned names are never forgotten.
+   *
+   * @throws IllegalArgumentException if a name is {@code null}
+   */
+  static int[] of(Collection<String> names) {
+    int[] ids = new int[names.size()];
+    int count = 0;
+    for (String name : names) {
+      if (name == null) {
+        throw new IllegalArgumentException("attendees cannot contain null");
+      }
+      ids[count++] = AttendeeIds.intern(name);
+    }
+    return sortedUnique(ids, count);
+  }
+
+  /**
+   * Returns the ids of {@code names}, sorted and without repeats, or {@code null} if any of them
+   * was never interned. Unlike {@link #of}, this never adds a name.
+   *
+   * @throws IllegalArgumentException if a name is {@code null}
+   */
+  static int[] findAll(Collection<String> names) {
+    int[] ids = new int[names.size()];
+    int count = 0;
+    boolean all = true;
+    for (String name : names) {
+      if (name == null) {
+        throw new IllegalArgumentException("attendees cannot contain null");
+      }
+      int id = AttendeeIds.find(name);
+      if (id < 0) {
+        all = false;
+      } else {
+        ids[count++] = id;
+      }
+    }
+    return all ? sortedUnique(ids, count) : null;
+  }
+
+  /**
+   * Returns the ids of those of {@code names} that have one, sorted and without repeats. Names
+   * that were never interned belong to nobody with events, so they are left out.
+   */
+  static int[] find(Collection<String> names) {
+    int[] ids = new int[names.size()];
+    int count = 0;
+    for (String name : names) {
+      int id = AttendeeIds.find(name);
+      if (id >= 0) {
+        ids[count++] = id;
+      }
+    }
+    return sortedUnique(ids, count);
+  }
+
+  private static int[] sortedUnique(int[] ids, int count) {
+    Arrays.sort(ids, 0, count);
+
+    int kept = 0;
+    for (int i = 0; i < count; i++) {
+      if (kept == 0 || ids[kept - 1] != ids[i]) {
+        ids[kept++] = ids[i];
+      }
+    }
+    return kept == ids.length ? ids : Arrays.copyOf(ids, kept);
+  }
+
+  /**
+   * Returns {@code ids} with {@code id} added, or {@code ids} itself if it is already there.
+   */
+  static int[] with(int[] ids, int id) {
+    int index = Arrays.binarySearch(ids, id);
+    if (index >= 0) {
+      return ids;
+    }
+
+    index = -index - 1;
+    int[] result = new int[ids.length + 1];
+    System.arraycopy(ids, 0, result, 0, index);
+    result[index] = id;
+    System.arraycopy(ids, index, result, index + 1, ids.length - index);
+    return result;
+  }
+
+  /**
+   * Checks if the sorted arrays {@code a} and {@code b} have an id in common. Walks both arrays
+   * together, unless one is much smaller, in which case its ids are looked up in the other.
+   */
+  static boolean intersects(int[] a, int[] b) {
+    if (a.length > b.length) {
+      int[] swap = a;
+      a = b;
+      b = swap;
+    }
+    if (a.length == 0 || a[a.length - 1] < b[0] || b[b.length - 1] < a[0]) {
+      return false;
+    }
+
+    if (a.length * 8 < b.length) {
+      for (int id : a) {
+        if (Arrays.binarySearch(b, id) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] == b[j]) {
+        return true;
+      } else if (a[i] < b[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof String)) {
+      return false;
+    }
+    int id = AttendeeIds.find((String) o);
+    return id >= 0 && Arrays.binarySearch(ids, id) >= 0;
+  }
+
+  @Override
+  public int size() {
+    return ids.length;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < ids.length;
+      }
+
+      @Override
+      public String next() {
+        if (next == ids.length) {
+          throw new NoSuchElementException();
+        }
+        return AttendeeIds.nameOf(ids[next++]);
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof AttendeeSet) {
+      return Arrays.equals(ids, ((AttendeeSet) o).ids);
+    }
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    // Must match the hash of any other set with the same names.
+    return super.hashCode();
+  }
+}
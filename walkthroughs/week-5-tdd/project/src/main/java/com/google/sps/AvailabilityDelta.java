@@ -0,0 +1,56 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The change to the available slots of one subscription after an event was added or removed.
+ * Applying it means dropping every range in {@code removed} and then adding every range in
+ * {@code added}. Delta objects are considered read-only.
+ */
+public final class AvailabilityDelta {
+  private final long subscriptionId;
+  private final List<TimeRange> added;
+  private final List<TimeRange> removed;
+
+  AvailabilityDelta(long subscriptionId, List<TimeRange> added, List<TimeRange> removed) {
+    this.subscriptionId = subscriptionId;
+    this.added = added;
+    this.removed = removed;
+  }
+
+  /**
+   * Returns the id of the subscription this change belongs to.
+   */
+  public long getSubscriptionId() {
+    return subscriptionId;
+  }
+
+  /**
+   * Returns the slots that became available, sorted by start.
+   */
+  public List<TimeRange> getAdded() {
+    return Collections.unmodifiableList(added);
+  }
+
+  /**
+   * Returns the slots that are no longer available, sorted by start.
+   */
+  public List<TimeRange> getRemoved() {
+    return Collections.unmodifiableList(removed);
+  }
+}
@@ -0,0 +1,227 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the answers to registered meeting requests up to date as events are added and removed,
+ * and tells each subscriber only what changed.
+ *
+ * <p>Subscriptions follow the rules of {@link FindMeetingQuery#query(AttendeeIndex,
+ * MeetingRequest)}: only mandatory attendees are considered. That is what makes the change local;
+ * a new or removed event can only affect the free time around itself, so the slots are recomputed
+ * between the nearest busy boundaries on either side of the event instead of over the whole day.
+ *
+ * <p>Subscriptions listen to the {@link EventStore} they are made over, so every change to the
+ * store reaches them. Listeners are called while this object is locked, so they should be quick
+ * and must not call back into it.
+ */
+public final class AvailabilitySubscriptions {
+  /**
+   * Receives the changes to one subscription.
+   */
+  public interface Listener {
+    void onChange(AvailabilityDelta delta);
+  }
+
+  private final AttendeeIndex index;
+  private final Map<Long, Subscription> subscriptions = new HashMap<>();
+  private final Map<String, Set<Subscription>> byAttendee = new HashMap<>();
+  private long nextId = 1;
+
+  /**
+   * Creates subscriptions over the events of {@code store}, and starts listening to it.
+   */
+  public AvailabilitySubscriptions(EventStore store) {
+    this.index = store.getIndex();
+    store.addListener(this::eventChanged);
+  }
+
+  /**
+   * Registers {@code request} and returns the id of the new subscription. The current slots can be
+   * read with {@link #getSlots}; {@code listener} is told about every change after that.
+   */
+  public synchronized long subscribe(MeetingRequest request, Listener listener) {
+    Subscription subscription = new Subscription(nextId++, request, listener);
+    subscription.slots = Intervals.fromTimeRanges(new FindMeetingQuery().query(index, request));
+    subscriptions.put(subscription.id, subscription);
+
+    for (String attendee : subscription.attendees) {
+      Set<Subscription> watching = byAttendee.get(attendee);
+      if (watching == null) {
+        watching = new LinkedHashSet<>();
+        byAttendee.put(attendee, watching);
+      }
+      watching.add(subscription);
+    }
+    return subscription.id;
+  }
+
+  /**
+   * Stops sending changes for the subscription with {@code id}. Returns {@code false} if there is
+   * no such subscription.
+   */
+  public synchronized boolean unsubscribe(long id) {
+    Subscription subscription = subscriptions.remove(id);
+    if (subscription == null) {
+      return false;
+    }
+
+    for (String attendee : subscription.attendees) {
+      Set<Subscription> watching = byAttendee.get(attendee);
+      watching.remove(subscription);
+      if (watching.isEmpty()) {
+        byAttendee.remove(attendee);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the current slots of the subscription with {@code id}, or {@code null} if there is no
+   * such subscription.
+   */
+  public synchronized List<TimeRange> getSlots(long id) {
+    Subscription subscription = subscriptions.get(id);
+    return subscription == null ? null : Intervals.toTimeRanges(subscription.slots);
+  }
+
+  /**
+   * Notifies every subscription changed by {@code event}, which was just added to or removed from
+   * the store. The store calls this once per change and in order.
+   */
+  private synchronized void eventChanged(Event event) {
+    if (Intervals.length(event.getInterval()) <= 0) {
+      return;
+    }
+
+    Set<Subscription> affected = new LinkedHashSet<>();
+    for (String attendee : event.getAttendees()) {
+      Set<Subscription> watching = byAttendee.get(attendee);
+      if (watching != null) {
+        affected.addAll(watching);
+      }
+    }
+
+    for (Subscription subscription : affected) {
+      AvailabilityDelta delta = subscription.update(index, event.getInterval());
+      if (delta != null) {
+        subscription.listener.onChange(delta);
+      }
+    }
+  }
+
+  private static final class Subscription {
+    final long id;
+    final Set<String> attendees;
+    final long duration;
+    final Listener listener;
+
+    // The current answer as merged packed intervals.
+    long[] slots;
+
+    Subscription(long id, MeetingRequest request, Listener listener) {
+      this.id = id;
+      this.attendees = new HashSet<>(request.getAttendees());
+      this.duration = request.getDuration();
+      this.listener = listener;
+    }
+
+    /**
+     * Recomputes the slots around {@code changed} and returns what differs, or {@code null} if
+     * nothing does.
+     *
+     * <p>Let {@code lo} be the latest end of a busy interval that lies wholly before the change and
+     * {@code hi} the earliest start of one that lies wholly after it. Free time can only have
+     * changed inside {@code [lo, hi)}, and both bounds are the same before and after the change
+     * since the changed interval is never wholly on either side. The only busy intervals inside
+     * that window are the ones overlapping the change itself.
+     */
+    AvailabilityDelta update(AttendeeIndex index, long changed) {
+      if (duration > TimeRange.WHOLE_DAY.duration()) {
+        return null;
+      }
+
+      int start = Intervals.start(changed);
+      int end = Intervals.end(changed);
+      int lo = TimeRange.START_OF_DAY;
+      int hi = TimeRange.WHOLE_DAY.end();
+      long[] local = new long[8];
+      int count = 0;
+
+      for (String attendee : attendees) {
+        long[] busy = index.busyIntervals(attendee);
+        int i = Intervals.firstEndingAfter(busy, start);
+        if (i > 0) {
+          lo = Math.max(lo, Intervals.end(busy[i - 1]));
+        }
+        for (; i < busy.length && Intervals.start(busy[i]) < end; i++) {
+          if (count == local.length) {
+            local = Arrays.copyOf(local, count * 2);
+          }
+          local[count++] = busy[i];
+        }
+        if (i < busy.length) {
+          hi = Math.min(hi, Intervals.start(busy[i]));
+        }
+      }
+
+      Intervals.sort(local, count);
+      long[] fresh = Intervals.complement(local, count, lo, hi, duration);
+
+      // The old slots inside [lo, hi) form one contiguous run.
+      int from = Intervals.firstEndingAfter(slots, lo);
+      int to = from;
+      while (to < slots.length && Intervals.start(slots[to]) < hi) {
+        to++;
+      }
+      long[] stale = Arrays.copyOfRange(slots, from, to);
+      if (Arrays.equals(stale, fresh)) {
+        return null;
+      }
+
+      long[] updated = new long[slots.length - stale.length + fresh.length];
+      System.arraycopy(slots, 0, updated, 0, from);
+      System.arraycopy(fresh, 0, updated, from, fresh.length);
+      System.arraycopy(slots, to, updated, from + fresh.length, slots.length - to);
+      slots = updated;
+
+      return new AvailabilityDelta(id, difference(fresh, stale), difference(stale, fresh));
+    }
+
+    /** Returns the intervals of sorted {@code a} that are not in sorted {@code b}. */
+    private static List<TimeRange> difference(long[] a, long[] b) {
+      List<TimeRange> result = new ArrayList<>();
+      int j = 0;
+      for (long interval : a) {
+        while (j < b.length && b[j] < interval) {
+          j++;
+        }
+        if (j == b.length || b[j] != interval) {
+          result.add(Intervals.toTimeRange(interval));
+        }
+      }
+      return result;
+    }
+  }
+}
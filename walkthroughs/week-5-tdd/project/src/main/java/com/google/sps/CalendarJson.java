@@ -0,0 +1,401 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * JSON encoding of the calendar types, written by hand so that Gson does not have to reflect over
+ * the classes. The format is the same one Gson produced by reflection, which is what
+ * {@code script.js} expects:
+ *
+ * <pre>
+ *   TimeRange:      {"start": 600, "duration": 30}
+ *   Event:          {"title": "...", "when": TimeRange, "attendees": ["..."]}
+ *   MeetingRequest: {"attendees": ["..."], "optional_attendees": ["..."], "duration": 30,
+ *                    "room_capacity": 0, "room_equipment": ["..."]}
+ * </pre>
+ */
+public final class CalendarJson {
+  private static final Gson GSON = new GsonBuilder()
+      .registerTypeAdapter(TimeRange.class, new TimeRangeAdapter().nullSafe())
+      .registerTypeAdapter(Event.class, new EventAdapter().nullSafe())
+      .registerTypeAdapter(MeetingRequest.class, new MeetingRequestAdapter().nullSafe())
+      .create();
+
+  private CalendarJson() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns a {@code Gson} that encodes and decodes the calendar types with the adapters below.
+   * The instance is shared and safe to use from many threads.
+   */
+  public static Gson gson() {
+    return GSON;
+  }
+
+  /**
+   * Writes {@code events} as a JSON array straight to {@code out}, one event at a time, without
+   * building the whole document in memory first.
+   */
+  public static void writeEvents(Iterable<Event> events, Writer out) throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.beginArray();
+    for (Event event : events) {
+      EventAdapter.writeEvent(writer, event);
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Writes {@code page} as {@code {"events": [Event], "next": "cursor"}} straight to {@code out}.
+   * {@code next} is {@code null} on the last page.
+   */
+  public static void writeEventPage(EventPage page, Writer out) throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.beginObject();
+    writer.name("events");
+    writer.beginArray();
+    for (Event event : page.getEvents()) {
+      EventAdapter.writeEvent(writer, event);
+    }
+    writer.endArray();
+    writer.name("next").value(page.getNextCursor());
+    writer.endObject();
+    writer.flush();
+  }
+
+  /**
+   * Writes {@code conflicts} straight to {@code out} as
+   * {@code [{"events": [Event, Event], "attendees": ["Name"]}]}.
+   */
+  public static void writeConflicts(Iterable<EventConflict> conflicts, Writer out)
+      throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.beginArray();
+    for (EventConflict conflict : conflicts) {
+      writer.beginObject();
+      writer.name("events");
+      writer.beginArray();
+      EventAdapter.writeEvent(writer, conflict.getFirst());
+      EventAdapter.writeEvent(writer, conflict.getSecond());
+      writer.endArray();
+      writer.name("attendees");
+      writeStrings(writer, conflict.getAttendees());
+      writer.endObject();
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Writes the latency of each query phase straight to {@code out} as
+   * {@code {"parse": {"count": 10, "p50_us": 12.5, "p99_us": 40.1, "p999_us": 52.0}, ...}}.
+   * Percentiles are in microseconds.
+   */
+  public static void writeMetrics(QueryMetrics metrics, Writer out) throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.beginObject();
+    for (QueryMetrics.Phase phase : QueryMetrics.Phase.values()) {
+      LatencyHistogram histogram = metrics.get(phase);
+      writer.name(phase.name().toLowerCase(Locale.ROOT));
+      writer.beginObject();
+      writer.name("count").value(histogram.count());
+      writer.name("p50_us").value(histogram.percentile(50) / 1000.0);
+      writer.name("p99_us").value(histogram.percentile(99) / 1000.0);
+      writer.name("p999_us").value(histogram.percentile(99.9) / 1000.0);
+      writer.endObject();
+    }
+    writer.endObject();
+    writer.flush();
+  }
+
+  /**
+   * Writes {@code ranges} as a JSON array straight to {@code out}.
+   */
+  public static void writeTimeRanges(Iterable<TimeRange> ranges, Writer out) throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writeTimeRanges(writer, ranges);
+    writer.flush();
+  }
+
+  /**
+   * Writes {@code answers} as a JSON array of arrays of time ranges straight to {@code out}.
+   */
+  public static void writeAnswers(Iterable<? extends Iterable<TimeRange>> answers, Writer out)
+      throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.beginArray();
+    for (Iterable<TimeRange> ranges : answers) {
+      writeTimeRanges(writer, ranges);
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Writes {@code deltas} as a JSON array straight to {@code out}. Each delta is written as
+   * {@code {"added": [TimeRange], "removed": [TimeRange]}}.
+   */
+  public static void writeDeltas(Iterable<AvailabilityDelta> deltas, Writer out)
+      throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.beginArray();
+    for (AvailabilityDelta delta : deltas) {
+      writer.beginObject();
+      writer.name("added");
+      writeTimeRanges(writer, delta.getAdded());
+      writer.name("removed");
+      writeTimeRanges(writer, delta.getRemoved());
+      writer.endObject();
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Writes a new subscription as {@code {"id": 1, "slots": [TimeRange]}} straight to {@code out}.
+   */
+  public static void writeSubscription(long id, Iterable<TimeRange> slots, Writer out)
+      throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.beginObject();
+    writer.name("id").value(id);
+    writer.name("slots");
+    writeTimeRanges(writer, slots);
+    writer.endObject();
+    writer.flush();
+  }
+
+  private static void writeTimeRanges(JsonWriter writer, Iterable<TimeRange> ranges)
+      throws IOException {
+    writer.beginArray();
+    for (TimeRange range : ranges) {
+      TimeRangeAdapter.writeTimeRange(writer, range);
+    }
+    writer.endArray();
+  }
+
+  private static void writeStrings(JsonWriter writer, Collection<String> values)
+      throws IOException {
+    writer.beginArray();
+    for (String value : values) {
+      writer.value(value);
+    }
+    writer.endArray();
+  }
+
+  private static List<String> readStrings(JsonReader reader) throws IOException {
+    List<String> values = new ArrayList<>();
+    if (reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return values;
+    }
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (reader.peek() == JsonToken.NULL) {
+        throw new JsonParseException("Expected a name but was null at " + reader.getPath());
+      }
+      values.add(reader.nextString());
+    }
+    reader.endArray();
+    return values;
+  }
+
+  /**
+   * Reads a number, or a string holding one, and turns anything else into a
+   * {@code JsonParseException}; Gson passes a {@code NumberFormatException} on as it is.
+   */
+  private static int readInt(JsonReader reader) throws IOException {
+    try {
+      return reader.nextInt();
+    } catch (NumberFormatException | IllegalStateException e) {
+      throw new JsonParseException("Expected a whole number at " + reader.getPath(), e);
+    }
+  }
+
+  /** Same as {@link #readInt} for a {@code long}. */
+  private static long readLong(JsonReader reader) throws IOException {
+    try {
+      return reader.nextLong();
+    } catch (NumberFormatException | IllegalStateException e) {
+      throw new JsonParseException("Expected a whole number at " + reader.getPath(), e);
+    }
+  }
+
+  private static final class TimeRangeAdapter extends TypeAdapter<TimeRange> {
+    @Override
+    public void write(JsonWriter writer, TimeRange range) throws IOException {
+      writeTimeRange(writer, range);
+    }
+
+    @Override
+    public TimeRange read(JsonReader reader) throws IOException {
+      int start = 0;
+      int duration = 0;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "start":
+            start = readInt(reader);
+            break;
+          case "duration":
+            duration = readInt(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+      return TimeRange.fromStartDuration(start, duration);
+    }
+
+    static void writeTimeRange(JsonWriter writer, TimeRange range) throws IOException {
+      writer.beginObject();
+      writer.name("start").value(range.start());
+      writer.name("duration").value(range.duration());
+      writer.endObject();
+    }
+  }
+
+  private static final class EventAdapter extends TypeAdapter<Event> {
+    @Override
+    public void write(JsonWriter writer, Event event) throws IOException {
+      writeEvent(writer, event);
+    }
+
+    @Override
+    public Event read(JsonReader reader) throws IOException {
+      String title = null;
+      TimeRange when = null;
+      List<String> attendees = new ArrayList<>();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "title":
+            title = reader.nextString();
+            break;
+          case "when":
+            when = new TimeRangeAdapter().read(reader);
+            break;
+          case "attendees":
+            attendees = readStrings(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      // The calendar is one day long, and the scheduler relies on every event being inside it.
+      if (when != null && (when.start() < 0 || when.duration() < 0
+          || (long) when.start() + when.duration() > TimeRange.WHOLE_DAY.end())) {
+        throw new JsonParseException("Event must take place within the day: " + when);
+      }
+      try {
+        return Event.unstored(title, when, attendees);
+      } catch (IllegalArgumentException e) {
+        throw new JsonParseException("Invalid event: " + e.getMessage(), e);
+      }
+    }
+
+    static void writeEvent(JsonWriter writer, Event event) throws IOException {
+      writer.beginObject();
+      writer.name("title").value(event.getTitle());
+      writer.name("when");
+      TimeRangeAdapter.writeTimeRange(writer, event.getWhen());
+      writer.name("attendees");
+      writeStrings(writer, event.getAttendees());
+      writer.endObject();
+    }
+  }
+
+  private static final class MeetingRequestAdapter extends TypeAdapter<MeetingRequest> {
+    @Override
+    public void write(JsonWriter writer, MeetingRequest request) throws IOException {
+      writer.beginObject();
+      writer.name("attendees");
+      writeStrings(writer, request.getAttendees());
+      writer.name("optional_attendees");
+      writeStrings(writer, request.getOptionalAttendees());
+      writer.name("duration").value(request.getDuration());
+      writer.name("room_capacity").value(request.getRoomCapacity());
+      writer.name("room_equipment");
+      writeStrings(writer, request.getRoomEquipment());
+      writer.endObject();
+    }
+
+    @Override
+    public MeetingRequest read(JsonReader reader) throws IOException {
+      List<String> attendees = new ArrayList<>();
+      List<String> optionalAttendees = new ArrayList<>();
+      long duration = 0;
+      int roomCapacity = 0;
+      List<String> roomEquipment = new ArrayList<>();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "attendees":
+            attendees = readStrings(reader);
+            break;
+          case "optional_attendees":
+            optionalAttendees = readStrings(reader);
+            break;
+          case "duration":
+            // The page sends the duration as a string, which nextLong accepts as well.
+            duration = readLong(reader);
+            break;
+          case "room_capacity":
+            roomCapacity = readInt(reader);
+            break;
+          case "room_equipment":
+            roomEquipment = readStrings(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      try {
+        MeetingRequest request = new MeetingRequest(attendees, duration);
+        for (String attendee : optionalAttendees) {
+          request.addOptionalAttendee(attendee);
+        }
+        if (roomCapacity > 0 || !roomEquipment.isEmpty()) {
+          request.requireRoom(roomCapacity, roomEquipment);
+        }
+        return request;
+      } catch (IllegalArgumentException e) {
+        throw new JsonParseException("Invalid meeting request: " + e.getMessage(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The whole of an {@link EventStore} at one point in time: its events, its index of who is busy
+ * when, and its events by time. A state never changes; every change to the store publishes a new
+ * one, so everything read from the same state agrees however many changes happen meanwhile.
+ */
+public final class CalendarState {
+  private final Collection<Event> events;
+  private final AttendeeIndex index;
+  // Built on the first windowed read unless the store already had one.
+  private volatile EventTimeIndex byTime;
+
+  /**
+   * {@code events} must not change and {@code index} must be a frozen copy of the store's index
+   * holding the same events. {@code byTime} may be {@code null}.
+   */
+  CalendarState(Collection<Event> events, AttendeeIndex index, EventTimeIndex byTime) {
+    this.events = events;
+    this.index = index;
+    this.byTime = byTime;
+  }
+
+  /**
+   * Returns the events, which cannot be changed.
+   */
+  public Collection<Event> getEvents() {
+    return events;
+  }
+
+  /**
+   * See {@link EventStore#getEvents(TimeRange)}.
+   */
+  public Collection<Event> getEvents(TimeRange window) {
+    return Collections.unmodifiableList(byTime().overlapping(window));
+  }
+
+  /**
+   * See {@link EventStore#getEvents(TimeRange, String, String, int)}.
+   */
+  public EventPage getEvents(TimeRange window, String attendee, String cursor, int limit) {
+    return byTime().page(window, attendee, cursor, limit);
+  }
+
+  /**
+   * Returns the index over the events of this state, which cannot be changed.
+   */
+  public AttendeeIndex getIndex() {
+    return index;
+  }
+
+  /** Returns the time index if one has been built, or {@code null}. */
+  EventTimeIndex builtTimeIndex() {
+    return byTime;
+  }
+
+  private EventTimeIndex byTime() {
+    EventTimeIndex result = byTime;
+    if (result == null) {
+      // Two readers may both build it; either result is the same.
+      result = new EventTimeIndex(events);
+      byTime = result;
+    }
+    return result;
+  }
+}
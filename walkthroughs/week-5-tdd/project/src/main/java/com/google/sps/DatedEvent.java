@@ -0,0 +1,102 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * DatedEvent is the counterpart of {@code Event} for calendars that span more than one day. It
+ * takes place at an absolute {@code EpochTimeRange} rather than at minutes within a day. Dated
+ * events are considered read-only.
+ */
+public final class DatedEvent {
+  private final String title;
+  private final EpochTimeRange when;
+  private final Set<String> attendees = new HashSet<>();
+
+  // {@code when} packed with {@link Intervals#of}.
+  private final transient long interval;
+
+  /**
+   * Creates a new event.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param when The time when the event takes place. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   */
+  public DatedEvent(String title, EpochTimeRange when, Collection<String> attendees) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    this.title = title;
+    this.when = when;
+    this.interval = Intervals.of(when.start(), when.end());
+    this.attendees.addAll(attendees);
+  }
+
+  /**
+   * Returns the human-readable name for this event.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns the {@code EpochTimeRange} for when this event occurs.
+   */
+  public EpochTimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns {@link #getWhen} packed with {@link Intervals#of}.
+   */
+  long getInterval() {
+    return interval;
+  }
+
+  /**
+   * Returns a read-only set of required attendees for this event.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(attendees);
+  }
+
+  @Override
+  public int hashCode() {
+    return title.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof DatedEvent && equals(this, (DatedEvent) other);
+  }
+
+  private static boolean equals(DatedEvent a, DatedEvent b) {
+    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+  }
+}
@@ -0,0 +1,139 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * Busy time of a single day as one bit per minute. Minute {@code m} is bit {@code m % 64} of word
+ * {@code m / 64}, so a whole day fits in 23 longs. Combining people is a word-wise OR and finding
+ * free time skips whole words at a time, which keeps queries over many attendees cheap no matter
+ * how many events each of them has.
+ *
+ * <p>The bits past the end of the day in the last word are never read.
+ */
+final class DayBitmap {
+  static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+  static final int WORDS = (MINUTES + Long.SIZE - 1) / Long.SIZE;
+
+  private DayBitmap() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns a bitmap with every minute covered by the packed {@code intervals} set. Intervals may
+   * be in any order and may overlap; anything outside of the day is ignored.
+   */
+  static long[] of(long[] intervals) {
+    long[] bits = new long[WORDS];
+    setAll(bits, intervals);
+    return bits;
+  }
+
+  /**
+   * Sets the bits of every minute covered by the packed {@code intervals}, as {@link #of} does.
+   */
+  static void setAll(long[] bits, long[] intervals) {
+    for (long interval : intervals) {
+      setRange(bits, Math.max(0, Intervals.start(interval)),
+          Math.min(MINUTES, Intervals.end(interval)));
+    }
+  }
+
+  /**
+   * Sets the bits of minutes {@code from} (inclusive) to {@code to} (exclusive).
+   */
+  static void setRange(long[] bits, int from, int to) {
+    if (from >= to) {
+      return;
+    }
+
+    int first = from >>> 6;
+    int last = (to - 1) >>> 6;
+    // Shifts only use the low six bits of the distance, so these are the partial first and last
+    // words.
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> -to;
+    if (first == last) {
+      bits[first] |= firstMask & lastMask;
+      return;
+    }
+
+    bits[first] |= firstMask;
+    Arrays.fill(bits, first + 1, last, -1L);
+    bits[last] |= lastMask;
+  }
+
+  /**
+   * Adds the busy minutes of {@code other} to {@code into}.
+   */
+  static void or(long[] into, long[] other) {
+    for (int i = 0; i < WORDS; i++) {
+      into[i] |= other[i];
+    }
+  }
+
+  /**
+   * Returns the runs of free minutes in {@code busy} that last at least {@code minLength} minutes,
+   * as merged packed intervals.
+   */
+  static long[] freeRuns(long[] busy, long minLength) {
+    long[] runs = new long[8];
+    int count = 0;
+    int minute = 0;
+    while (minute < MINUTES) {
+      int start = nextFree(busy, minute);
+      if (start == MINUTES) {
+        break;
+      }
+
+      int end = nextBusy(busy, start);
+      if (end - start >= minLength) {
+        if (count == runs.length) {
+          runs = Arrays.copyOf(runs, count * 2);
+        }
+        runs[count++] = Intervals.of(start, end);
+      }
+      minute = end;
+    }
+    return Arrays.copyOf(runs, count);
+  }
+
+  /** Returns the first free minute at or after {@code from}, or {@link #MINUTES} if none. */
+  private static int nextFree(long[] bits, int from) {
+    int word = from >>> 6;
+    long free = ~bits[word] & (-1L << from);
+    while (free == 0) {
+      if (++word == WORDS) {
+        return MINUTES;
+      }
+      free = ~bits[word];
+    }
+    return Math.min(MINUTES, (word << 6) + Long.numberOfTrailingZeros(free));
+  }
+
+  /** Returns the first busy minute at or after {@code from}, or {@link #MINUTES} if none. */
+  private static int nextBusy(long[] bits, int from) {
+    int word = from >>> 6;
+    long busy = bits[word] & (-1L << from);
+    while (busy == 0) {
+      if (++word == WORDS) {
+        return MINUTES;
+      }
+      busy = bits[word];
+    }
+    return Math.min(MINUTES, (word << 6) + Long.numberOfTrailingZeros(busy));
+  }
+}
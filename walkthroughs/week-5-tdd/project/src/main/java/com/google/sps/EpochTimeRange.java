@@ -0,0 +1,146 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.Instant;
+import java.util.Comparator;
+
+/**
+ * Class representing a span of absolute time, counted in minutes since the Unix epoch (UTC). Unlike
+ * {@code TimeRange}, which only covers a single day, an {@code EpochTimeRange} can cover any number
+ * of days and does not depend on a time zone.
+ */
+public final class EpochTimeRange {
+  /**
+   * A comparator for sorting ranges by their start time in ascending order.
+   */
+  public static final Comparator<EpochTimeRange> ORDER_BY_START =
+      new Comparator<EpochTimeRange>() {
+        @Override
+        public int compare(EpochTimeRange a, EpochTimeRange b) {
+          return Integer.compare(a.start, b.start);
+        }
+      };
+
+  private final int start;
+  private final int end;
+
+  private EpochTimeRange(int start, int end) {
+    if (start < 0) {
+      throw new IllegalArgumentException("start cannot be before the epoch");
+    }
+
+    if (end < start) {
+      throw new IllegalArgumentException("end cannot be before start");
+    }
+
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Returns the start of the range in minutes since the epoch.
+   */
+  public int start() {
+    return start;
+  }
+
+  /**
+   * Returns the end of the range in minutes since the epoch. This is the closing exclusive bound.
+   */
+  public int end() {
+    return end;
+  }
+
+  /**
+   * Returns the number of minutes between the start and end.
+   */
+  public int duration() {
+    return end - start;
+  }
+
+  /**
+   * Checks if two ranges overlap. This means that at least some part of one range falls within the
+   * bounds of another range.
+   */
+  public boolean overlaps(EpochTimeRange other) {
+    return start < other.end && other.start < end;
+  }
+
+  /**
+   * Checks if this range completely contains another range. If two ranges are the same, they
+   * contain each other.
+   */
+  public boolean contains(EpochTimeRange other) {
+    return start <= other.start && other.end <= end && end > start;
+  }
+
+  /**
+   * Returns the start of the range as an {@code Instant}.
+   */
+  public Instant startInstant() {
+    return toInstant(start);
+  }
+
+  /**
+   * Returns the exclusive end of the range as an {@code Instant}.
+   */
+  public Instant endInstant() {
+    return toInstant(end);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof EpochTimeRange && start == ((EpochTimeRange) other).start
+        && end == ((EpochTimeRange) other).end;
+  }
+
+  @Override
+  public int hashCode() {
+    return Integer.hashCode(start) ^ Integer.hashCode(end);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Range: [%s, %s)", startInstant(), endInstant());
+  }
+
+  /**
+   * Creates an {@code EpochTimeRange} from {@code start} (inclusive) to {@code end} (exclusive),
+   * both in minutes since the epoch.
+   */
+  public static EpochTimeRange fromStartEnd(int start, int end) {
+    return new EpochTimeRange(start, end);
+  }
+
+  /**
+   * Creates an {@code EpochTimeRange} from {@code start} (inclusive) to {@code end} (exclusive).
+   * Seconds are dropped, so both ends are rounded down to the minute.
+   */
+  public static EpochTimeRange fromInstants(Instant start, Instant end) {
+    return new EpochTimeRange(toEpochMinute(start), toEpochMinute(end));
+  }
+
+  /**
+   * Returns the number of whole minutes between the epoch and {@code instant}.
+   */
+  public static int toEpochMinute(Instant instant) {
+    return Math.toIntExact(Math.floorDiv(instant.getEpochSecond(), 60));
+  }
+
+  private static Instant toInstant(int epochMinute) {
+    return Instant.ofEpochSecond(epochMinute * 60L);
+  }
+}
@@ -14,9 +14,10 @@
 
 package com.google.sps;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -26,7 +27,17 @@ import java.util.Set;
 public final class Event {
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+
+  // The attendees as sorted {@link AttendeeIds}, which is also what the scheduler compares. Null
+  // for an {@link #unstored} event while some of its names have no id.
+  private volatile int[] attendees;
+
+  // The attendee names, kept only if some of them had no id when the event was created.
+  private final Set<String> names;
+
+  // {@code when} packed with {@link Intervals#of}, so the scheduler can read it without touching
+  // the {@code TimeRange}. Not sent to the client since it only repeats {@code when}.
+  private final transient long interval;
 
   /**
    * Creates a new event.
@@ -36,6 +47,18 @@ public final class Event {
    * @param attendees The collection of people attending the event. Must be non-null.
    */
   public Event(String title, TimeRange when, Collection<String> attendees) {
+    this(title, when, attendees, true);
+  }
+
+  /**
+   * Creates an event whose attendee names are only looked up, not interned, until a store adds
+   * it. For events that come from clients, who may only be naming an event to remove or replace.
+   */
+  static Event unstored(String title, TimeRange when, Collection<String> attendees) {
+    return new Event(title, when, attendees, false);
+  }
+
+  private Event(String title, TimeRange when, Collection<String> attendees, boolean intern) {
     if (title == null) {
       throw new IllegalArgumentException("title cannot be null");
     }
@@ -50,7 +73,10 @@ public final class Event {
 
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+    this.interval = Intervals.of(when);
+    this.attendees = intern ? AttendeeSet.of(attendees) : AttendeeSet.findAll(attendees);
+    this.names = this.attendees != null
+        ? null : Collections.unmodifiableSet(new LinkedHashSet<>(attendees));
   }
 
   /**
@@ -67,13 +93,47 @@ public final class Event {
     return when;
   }
 
+  /**
+   * Returns {@link #getWhen} packed with {@link Intervals#of}.
+   */
+  long getInterval() {
+    return interval;
+  }
+
   /**
    * Returns a read-only set of required attendees for this event.
    */
   public Set<String> getAttendees() {
-    // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
-    return Collections.unmodifiableSet(attendees);
+    // The set is a read-only view, so the caller can't change our internal data.
+    int[] ids = attendees;
+    return ids != null ? new AttendeeSet(ids) : names;
+  }
+
+  /**
+   * Returns the sorted ids of the attendees. The array must not be changed. For an
+   * {@link #unstored} event, names that were never interned are left out: nobody with events can
+   * have them, so they can't make the event clash with anyone.
+   */
+  int[] getAttendeeIds() {
+    int[] ids = attendees;
+    if (ids != null) {
+      return ids;
+    }
+
+    ids = AttendeeSet.find(names);
+    if (ids.length == names.size()) {
+      attendees = ids;
+    }
+    return ids;
+  }
+
+  /**
+   * Interns the attendee names of an {@link #unstored} event. Called by stores when they add it.
+   */
+  void internAttendees() {
+    if (attendees == null) {
+      attendees = AttendeeSet.of(names);
+    }
   }
 
   @Override
@@ -89,8 +149,15 @@ public final class Event {
   }
 
   private static boolean equals(Event a, Event b) {
-    // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
-    // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    if (!a.title.equals(b.title) || !a.when.equals(b.when)) {
+      return false;
+    }
+
+    // Both attendee arrays are sorted and free of repeats, so comparing them is set-equality.
+    // Without both arrays, compare the names rather than intern them.
+    int[] aIds = a.attendees;
+    int[] bIds = b.attendees;
+    return aIds != null && bIds != null
+        ? Arrays.equals(aIds, bIds) : a.getAttendees().equals(b.getAttendees());
   }
 }
@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Two events that overlap and share at least one attendee, who is therefore booked twice.
+ * Conflicts are considered read-only.
+ */
+public final class EventConflict {
+  private final Event first;
+  private final Event second;
+  private final List<String> attendees;
+
+  public EventConflict(Event first, Event second, List<String> attendees) {
+    this.first = first;
+    this.second = second;
+    this.attendees = Collections.unmodifiableList(attendees);
+  }
+
+  /**
+   * Returns the event that starts first.
+   */
+  public Event getFirst() {
+    return first;
+  }
+
+  /**
+   * Returns the event that starts no earlier than {@link #getFirst()}.
+   */
+  public Event getSecond() {
+    return second;
+  }
+
+  /**
+   * Returns everyone who attends both events, sorted by name. The list cannot be changed.
+   */
+  public List<String> getAttendees() {
+    return attendees;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s and %s for %s", first, second, attendees);
+  }
+
+  @Override
+  public int hashCode() {
+    return (first.hashCode() * 31 + second.hashCode()) * 31 + attendees.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof EventConflict && ((EventConflict) other).first.equals(first)
+        && ((EventConflict) other).second.equals(second)
+        && ((EventConflict) other).attendees.equals(attendees);
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the events that book someone twice.
+ *
+ * <p>Rather than comparing every pair of events, each attendee's events are swept in start order
+ * while a heap ordered by end holds the ones still going on. An event conflicts with exactly the
+ * events left in the heap once those that ended before it started are dropped, so the cost is
+ * O(n log n) plus one step per conflict found.
+ */
+public final class EventConflicts {
+  // Events that take no time only overlap events going on at their start, including ones that
+  // start at the same minute, so they are swept after those.
+  private static final Comparator<Event> SWEEP_ORDER =
+      Comparator.<Event>comparingInt(event -> event.getWhen().start())
+          .thenComparing(event -> event.getWhen().duration() == 0);
+
+  private static final Comparator<Event> BY_END =
+      Comparator.comparingInt(event -> event.getWhen().end());
+
+  private EventConflicts() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns every pair of {@code events} that overlap, as {@link TimeRange#overlaps} sees it, and
+   * share an attendee. Each pair is reported once however many attendees it shares. Conflicts are
+   * grouped by the first of those attendees in name order, and within that ordered by the start
+   * of the second event.
+   */
+  public static List<EventConflict> find(Iterable<Event> events) {
+    Map<Integer, List<Event>> byAttendee = new HashMap<>();
+    int maxId = -1;
+    for (Event event : events) {
+      for (int id : event.getAttendeeIds()) {
+        byAttendee.computeIfAbsent(id, key -> new ArrayList<>()).add(event);
+        maxId = Math.max(maxId, id);
+      }
+    }
+    List<Integer> attendees = new ArrayList<>(byAttendee.keySet());
+    attendees.sort(Comparator.comparing(AttendeeIds::nameOf));
+
+    // Where each attendee comes in name order, by id.
+    int[] rank = new int[maxId + 1];
+    for (int i = 0; i < attendees.size(); i++) {
+      rank[attendees.get(i)] = i;
+    }
+
+    List<EventConflict> result = new ArrayList<>();
+    for (int attendee : attendees) {
+      sweep(rank[attendee], rank, byAttendee.get(attendee), result);
+    }
+    return result;
+  }
+
+  /**
+   * Adds the conflicts among the events of the attendee ranked {@code first} that are reported for
+   * them.
+   */
+  private static void sweep(int first, int[] rank, List<Event> events, List<EventConflict> result) {
+    if (events.size() < 2) {
+      return;
+    }
+
+    events.sort(SWEEP_ORDER);
+    PriorityQueue<Event> going = new PriorityQueue<>(BY_END);
+    for (Event event : events) {
+      int start = event.getWhen().start();
+      while (!going.isEmpty() && going.peek().getWhen().end() <= start) {
+        going.poll();
+      }
+      for (Event earlier : going) {
+        // Pairs sharing several people are reported by the first of them only; the others skip
+        // the pair without listing who it shares.
+        if (isFirstShared(first, rank, earlier.getAttendeeIds(), event.getAttendeeIds())) {
+          result.add(new EventConflict(earlier, event, shared(earlier, event)));
+        }
+      }
+      if (event.getWhen().duration() > 0) {
+        going.add(event);
+      }
+    }
+  }
+
+  /**
+   * Checks that no id in both of the sorted arrays {@code a} and {@code b} ranks before
+   * {@code first}. Walks the arrays together and stops at the first such id.
+   */
+  private static boolean isFirstShared(int first, int[] rank, int[] a, int[] b) {
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        if (rank[a[i]] < first) {
+          return false;
+        }
+        i++;
+        j++;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the attendees of both events sorted by name. */
+  private static List<String> shared(Event a, Event b) {
+    List<String> shared = new ArrayList<>();
+    for (String attendee : a.getAttendees()) {
+      if (b.getAttendees().contains(attendee)) {
+        shared.add(attendee);
+      }
+    }
+    Collections.sort(shared);
+    return shared;
+  }
+}
@@ -0,0 +1,46 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of events in time order, along with the cursor that picks up where it left off.
+ */
+public final class EventPage {
+  private final List<Event> events;
+  private final String nextCursor;
+
+  EventPage(List<Event> events, String nextCursor) {
+    this.events = Collections.unmodifiableList(events);
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Returns the events on this page, which cannot be changed.
+   */
+  public List<Event> getEvents() {
+    return events;
+  }
+
+  /**
+   * Returns the cursor for the next page, or {@code null} if this is the last page. Cursors are
+   * opaque to callers and only make sense for the same window and attendee.
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+}
@@ -0,0 +1,361 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A saved calendar, read straight out of a memory-mapped file. Opening a snapshot only reads the
+ * header and the attendee names; events are decoded when they are asked for, and the busy time of
+ * each attendee is stored presorted so an {@code AttendeeIndex} can be filled with bulk copies.
+ * A table of the events in interval order lets {@link #find} binary-search for an event and only
+ * decode those with the same time. Version 1 files have no such table; for those it is worked out
+ * once when the file is opened.
+ *
+ * <p>The file is laid out as follows, with every number big-endian:
+ *
+ * <pre>
+ *   int    magic, version
+ *   long   generation
+ *   int    nameCount, eventCount, refCount, nameBytes, titleBytes
+ *   int    nameOffsets[nameCount + 1]     byte names[nameBytes]      (UTF-8)
+ *   int    titleOffsets[eventCount + 1]   byte titles[titleBytes]    (UTF-8)
+ *   long   intervals[eventCount]                                     (packed with Intervals.of)
+ *   int    refOffsets[eventCount + 1]     int refs[refCount]         (name index per attendee)
+ *   int    busyOffsets[nameCount + 1]     long busy[refCount]        (sorted, per name)
+ *   int    byInterval[eventCount]                                    (event numbers, by interval)
+ * </pre>
+ */
+final class EventSnapshot {
+  private static final int MAGIC = 0x45565331; // "EVS1"
+  private static final int VERSION = 2;
+  // Same layout without the byInterval table.
+  private static final int UNSORTED_VERSION = 1;
+  private static final int HEADER_BYTES = 4 + 4 + 8 + 5 * 4;
+
+  /** A snapshot with no events, for stores that have never been compacted. */
+  static final EventSnapshot EMPTY = new EventSnapshot();
+
+  private final ByteBuffer buffer;
+  private final long generation;
+  private final String[] names;
+  private final int eventCount;
+  // The byInterval table worked out on open, for version 1 files only.
+  private final int[] order;
+
+  // Where each section starts.
+  private final int titleOffsets;
+  private final int titles;
+  private final int intervals;
+  private final int refOffsets;
+  private final int refs;
+  private final int busyOffsets;
+  private final int busy;
+  private final int byInterval;
+
+  private EventSnapshot() {
+    buffer = ByteBuffer.allocate(0);
+    generation = 0;
+    names = new String[0];
+    eventCount = 0;
+    order = null;
+    titleOffsets = titles = intervals = refOffsets = refs = busyOffsets = busy = byInterval = 0;
+  }
+
+  private EventSnapshot(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+        || (buffer.getInt(4) != VERSION && buffer.getInt(4) != UNSORTED_VERSION)) {
+      throw new IOException("Not an event snapshot");
+    }
+    generation = buffer.getLong(8);
+    int nameCount = buffer.getInt(16);
+    eventCount = buffer.getInt(20);
+    int refCount = buffer.getInt(24);
+    int nameBytes = buffer.getInt(28);
+    int titleBytes = buffer.getInt(32);
+
+    int nameOffsets = HEADER_BYTES;
+    int nameData = nameOffsets + 4 * (nameCount + 1);
+    titleOffsets = nameData + nameBytes;
+    titles = titleOffsets + 4 * (eventCount + 1);
+    intervals = titles + titleBytes;
+    refOffsets = intervals + 8 * eventCount;
+    refs = refOffsets + 4 * (eventCount + 1);
+    busyOffsets = refs + 4 * refCount;
+    busy = busyOffsets + 4 * (nameCount + 1);
+    byInterval = busy + 8 * refCount;
+    boolean sorted = buffer.getInt(4) == VERSION;
+    if (byInterval + (sorted ? 4L * eventCount : 0) != buffer.capacity()) {
+      throw new IOException("Event snapshot is truncated");
+    }
+
+    names = new String[nameCount];
+    for (int i = 0; i < nameCount; i++) {
+      names[i] = string(nameData, nameOffsets, i);
+    }
+    order = sorted ? null : intervalOrder();
+  }
+
+  private int[] intervalOrder() {
+    Integer[] boxed = new Integer[eventCount];
+    for (int i = 0; i < eventCount; i++) {
+      boxed[i] = i;
+    }
+    Arrays.sort(boxed, Comparator.comparingLong(this::interval));
+    int[] result = new int[eventCount];
+    for (int i = 0; i < eventCount; i++) {
+      result[i] = boxed[i];
+    }
+    return result;
+  }
+
+  /**
+   * Maps the snapshot at {@code file}. The mapping stays valid after the file is replaced.
+   */
+  static EventSnapshot open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new EventSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes {@code events} to {@code file} as a snapshot of {@code generation}, and forces it to
+   * disk before returning. The events keep their order.
+   */
+  static void write(Path file, Collection<Event> events, long generation) throws IOException {
+    Map<String, Integer> nameIndex = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    List<long[]> busyByName = new ArrayList<>();
+    int[] busyCounts = new int[16];
+    int refCount = 0;
+    int titleBytes = 0;
+    List<byte[]> titles = new ArrayList<>(events.size());
+
+    for (Event event : events) {
+      byte[] title = event.getTitle().getBytes(StandardCharsets.UTF_8);
+      titles.add(title);
+      titleBytes += title.length;
+      for (String attendee : event.getAttendees()) {
+        Integer index = nameIndex.get(attendee);
+        if (index == null) {
+          index = names.size();
+          nameIndex.put(attendee, index);
+          names.add(attendee);
+          busyByName.add(new long[4]);
+          if (index == busyCounts.length) {
+            busyCounts = Arrays.copyOf(busyCounts, index * 2);
+          }
+        }
+        long[] busy = busyByName.get(index);
+        if (busyCounts[index] == busy.length) {
+          busy = Arrays.copyOf(busy, busy.length * 2);
+          busyByName.set(index, busy);
+        }
+        busy[busyCounts[index]++] = event.getInterval();
+        refCount++;
+      }
+    }
+
+    List<byte[]> nameData = new ArrayList<>(names.size());
+    int nameBytes = 0;
+    for (String name : names) {
+      byte[] data = name.getBytes(StandardCharsets.UTF_8);
+      nameData.add(data);
+      nameBytes += data.length;
+    }
+
+    try (OutputStream stream = Files.newOutputStream(file);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(generation);
+      out.writeInt(names.size());
+      out.writeInt(events.size());
+      out.writeInt(refCount);
+      out.writeInt(nameBytes);
+      out.writeInt(titleBytes);
+
+      writeChunks(out, nameData);
+      writeChunks(out, titles);
+      for (Event event : events) {
+        out.writeLong(event.getInterval());
+      }
+
+      int offset = 0;
+      for (Event event : events) {
+        out.writeInt(offset);
+        offset += event.getAttendees().size();
+      }
+      out.writeInt(offset);
+      for (Event event : events) {
+        for (String attendee : event.getAttendees()) {
+          out.writeInt(nameIndex.get(attendee));
+        }
+      }
+
+      offset = 0;
+      for (int i = 0; i < names.size(); i++) {
+        out.writeInt(offset);
+        offset += busyCounts[i];
+      }
+      out.writeInt(offset);
+      for (int i = 0; i < names.size(); i++) {
+        long[] busy = busyByName.get(i);
+        Arrays.sort(busy, 0, busyCounts[i]);
+        for (int j = 0; j < busyCounts[i]; j++) {
+          out.writeLong(busy[j]);
+        }
+      }
+
+      List<Event> list = new ArrayList<>(events);
+      Integer[] byInterval = new Integer[list.size()];
+      for (int i = 0; i < byInterval.length; i++) {
+        byInterval[i] = i;
+      }
+      Arrays.sort(byInterval, Comparator.comparingLong(i -> list.get(i).getInterval()));
+      for (int i : byInterval) {
+        out.writeInt(i);
+      }
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+  }
+
+  private static void writeChunks(DataOutputStream out, List<byte[]> chunks) throws IOException {
+    int offset = 0;
+    for (byte[] chunk : chunks) {
+      out.writeInt(offset);
+      offset += chunk.length;
+    }
+    out.writeInt(offset);
+    for (byte[] chunk : chunks) {
+      out.write(chunk);
+    }
+  }
+
+  /**
+   * Returns the generation the snapshot was written for, or 0 for {@link #EMPTY}.
+   */
+  long generation() {
+    return generation;
+  }
+
+  /**
+   * Returns how many events the snapshot holds.
+   */
+  int size() {
+    return eventCount;
+  }
+
+  /**
+   * Returns the packed interval of event {@code i} without decoding the rest of it.
+   */
+  long interval(int i) {
+    return buffer.getLong(intervals + 8 * i);
+  }
+
+  /**
+   * Returns the number of an event equal to {@code event} whose bit in {@code skip} is clear, or
+   * -1 if there is none. Takes O(log n) plus the events with the same interval, which are the only
+   * ones decoded.
+   */
+  int find(Event event, BitSet skip) {
+    long interval = event.getInterval();
+    int low = 0;
+    int high = eventCount;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (interval(at(mid)) < interval) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    for (int position = low; position < eventCount; position++) {
+      int i = at(position);
+      if (interval(i) != interval) {
+        break;
+      }
+      if (!skip.get(i) && event(i).equals(event)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the number of the event at {@code position} in interval order. */
+  private int at(int position) {
+    return order == null ? buffer.getInt(byInterval + 4 * position) : order[position];
+  }
+
+  /**
+   * Decodes event {@code i}.
+   */
+  Event event(int i) {
+    int from = buffer.getInt(refOffsets + 4 * i);
+    int to = buffer.getInt(refOffsets + 4 * (i + 1));
+    List<String> attendees = new ArrayList<>(to - from);
+    for (int ref = from; ref < to; ref++) {
+      attendees.add(names[buffer.getInt(refs + 4 * ref)]);
+    }
+    return new Event(string(titles, titleOffsets, i), Intervals.toTimeRange(interval(i)),
+        attendees);
+  }
+
+  /**
+   * Fills {@code index}, which must not hold any of the snapshot's attendees yet, with the busy
+   * time of every attendee in the snapshot.
+   */
+  void loadInto(AttendeeIndex.Editor index) {
+    LongBuffer longs = ((ByteBuffer) buffer.duplicate().position(busy)).asLongBuffer();
+    for (int i = 0; i < names.length; i++) {
+      int from = buffer.getInt(busyOffsets + 4 * i);
+      int to = buffer.getInt(busyOffsets + 4 * (i + 1));
+      long[] sorted = new long[to - from];
+      longs.position(from);
+      longs.get(sorted);
+      index.load(names[i], sorted);
+    }
+  }
+
+  private String string(int data, int offsets, int i) {
+    int from = buffer.getInt(offsets + 4 * i);
+    int to = buffer.getInt(offsets + 4 * (i + 1));
+    byte[] bytes = new byte[to - from];
+    ((ByteBuffer) buffer.duplicate().position(data + from)).get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
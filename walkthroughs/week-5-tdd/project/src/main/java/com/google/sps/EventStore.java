@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.Closeable;
+import java.util.Collection;
+
+/**
+ * Where the calendar's events live. A store keeps an {@code AttendeeIndex} over its events up to
+ * date, so the scheduler can be pointed at either.
+ *
+ * <p>Reads never wait for changes. Each change is published as a whole once it is complete, as a
+ * new {@link CalendarState}. Everything read from one state agrees, so a reader that needs the
+ * events and the index to match should take both from a single {@link #getState}; separate calls
+ * may each see a different state.
+ *
+ * <p>Changes that cannot be saved are thrown as {@code UncheckedIOException}.
+ */
+public interface EventStore extends Closeable {
+  /**
+   * Told about every change to a store, one at a time and in order, after the change has been
+   * made and indexed. Listeners are called while the store is locked, so they should be quick and
+   * must not change the store.
+   */
+  interface Listener {
+    void eventChanged(Event event);
+  }
+
+  /**
+   * Returns the whole store as of the time of the call. Later changes do not show up in it.
+   */
+  CalendarState getState();
+
+  /**
+   * Returns the events in the store at the time of the call. Later changes to the store do not
+   * show up in the returned collection, which cannot be changed either.
+   */
+  default Collection<Event> getEvents() {
+    return getState().getEvents();
+  }
+
+  /**
+   * Returns the events in the store at the time of the call that overlap {@code window}, ordered
+   * by time. The events are found through an {@link IntervalTree} rather than by a scan.
+   */
+  default Collection<Event> getEvents(TimeRange window) {
+    return getState().getEvents(window);
+  }
+
+  /**
+   * Returns one page of at most {@code limit} events overlapping {@code window}, in time order.
+   * Only events {@code attendee} takes part in are included, unless it is {@code null}. Pass a
+   * {@code null} cursor for the first page, then the cursor of the previous page. Each page costs
+   * about O(log n + limit) however large the calendar is.
+   *
+   * @throws IllegalArgumentException if {@code cursor} is not a cursor from an earlier page or
+   *     {@code limit} is not positive
+   */
+  default EventPage getEvents(TimeRange window, String attendee, String cursor, int limit) {
+    return getState().getEvents(window, attendee, cursor, limit);
+  }
+
+  /**
+   * Returns the index over the events in the store, which follows every change. It must only be
+   * read; use {@link #add} and {@link #remove} to change it. A change reaches the index just before
+   * it reaches {@link #getState}.
+   */
+  AttendeeIndex getIndex();
+
+  /**
+   * Adds {@code event} to the store.
+   */
+  void add(Event event);
+
+  /**
+   * Removes one event equal to {@code event} from the store. Returns {@code false} if there is no
+   * such event.
+   */
+  boolean remove(Event event);
+
+  /**
+   * Replaces one event equal to {@code event} with {@code replacement} as a single change. Returns
+   * {@code false} if there is no such event, in which case nothing changes. Listeners hear about
+   * the old event and then the new one.
+   */
+  boolean replace(Event event, Event replacement);
+
+  /**
+   * Calls {@code listener} after every change from now on.
+   */
+  void addListener(Listener listener);
+}
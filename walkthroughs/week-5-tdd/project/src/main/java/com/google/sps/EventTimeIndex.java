@@ -0,0 +1,172 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Events keyed on their times, both as a whole and per attendee, so that a window of one person's
+ * day can be read without touching anybody else's events. An index is never changed once built:
+ * {@link #with} and {@link #without} return a new index sharing all but O(log n) of its nodes
+ * with the old one, so the stores can publish each version to readers without locking.
+ *
+ * <p>Pages are cut in interval order. A cursor is the packed interval of the last event handed out
+ * and how many events with exactly that interval were handed out, written as {@code
+ * "<interval>.<count>"}. Events added or removed between two pages may be missed or repeated.
+ */
+final class EventTimeIndex {
+  private final IntervalTree<Event> all;
+  private final NameTrie<IntervalTree<Event>> byAttendee;
+
+  /**
+   * Builds the index over {@code events} in one pass after sorting them.
+   */
+  EventTimeIndex(Collection<Event> events) {
+    List<Event> sorted = new ArrayList<>(events);
+    sorted.sort(Comparator.comparingLong(Event::getInterval));
+    all = build(sorted);
+
+    Map<String, List<Event>> grouped = new HashMap<>();
+    for (Event event : sorted) {
+      for (String attendee : event.getAttendees()) {
+        grouped.computeIfAbsent(attendee, name -> new ArrayList<>()).add(event);
+      }
+    }
+    NameTrie<IntervalTree<Event>> byAttendee = NameTrie.empty();
+    for (Map.Entry<String, List<Event>> entry : grouped.entrySet()) {
+      byAttendee = byAttendee.with(entry.getKey(), build(entry.getValue()));
+    }
+    this.byAttendee = byAttendee;
+  }
+
+  private EventTimeIndex(IntervalTree<Event> all, NameTrie<IntervalTree<Event>> byAttendee) {
+    this.all = all;
+    this.byAttendee = byAttendee;
+  }
+
+  private static IntervalTree<Event> build(List<Event> sorted) {
+    long[] intervals = new long[sorted.size()];
+    for (int i = 0; i < intervals.length; i++) {
+      intervals[i] = sorted.get(i).getInterval();
+    }
+    return IntervalTree.fromSorted(intervals, sorted);
+  }
+
+  /**
+   * Returns an index that also holds {@code event}.
+   */
+  EventTimeIndex with(Event event) {
+    IntervalTree<Event> all = this.all.copy();
+    all.add(event.getInterval(), event);
+    NameTrie<IntervalTree<Event>> byAttendee = this.byAttendee;
+    for (String attendee : event.getAttendees()) {
+      IntervalTree<Event> tree = byAttendee.get(attendee);
+      tree = tree == null ? new IntervalTree<>() : tree.copy();
+      tree.add(event.getInterval(), event);
+      byAttendee = byAttendee.with(attendee, tree);
+    }
+    return new EventTimeIndex(all, byAttendee);
+  }
+
+  /**
+   * Returns an index without one event equal to {@code event}, or this index if it has none.
+   */
+  EventTimeIndex without(Event event) {
+    IntervalTree<Event> all = this.all.copy();
+    if (!all.remove(event.getInterval(), event)) {
+      return this;
+    }
+    NameTrie<IntervalTree<Event>> byAttendee = this.byAttendee;
+    for (String attendee : event.getAttendees()) {
+      IntervalTree<Event> tree = byAttendee.get(attendee);
+      if (tree == null) {
+        continue;
+      }
+      tree = tree.copy();
+      if (tree.remove(event.getInterval(), event)) {
+        byAttendee = tree.size() == 0
+            ? byAttendee.without(attendee) : byAttendee.with(attendee, tree);
+      }
+    }
+    return new EventTimeIndex(all, byAttendee);
+  }
+
+  /**
+   * Returns the events overlapping {@code window}, in time order.
+   */
+  List<Event> overlapping(TimeRange window) {
+    return all.overlapping(window.start(), window.end());
+  }
+
+  /**
+   * Returns up to {@code limit} events overlapping {@code window} that {@code attendee} takes part
+   * in, or that anyone does if {@code attendee} is {@code null}, starting after {@code cursor}, or
+   * at the beginning if it is {@code null}.
+   *
+   * @throws IllegalArgumentException if {@code cursor} was not made by this class or
+   *     {@code limit} is not positive
+   */
+  EventPage page(TimeRange window, String attendee, String cursor, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be at least 1, was " + limit);
+    }
+    IntervalTree<Event> tree = attendee == null ? all : byAttendee.get(attendee);
+    if (tree == null) {
+      return new EventPage(new ArrayList<>(), null);
+    }
+
+    long first = Long.MIN_VALUE;
+    int skip = 0;
+    if (cursor != null) {
+      int dot = cursor.indexOf('.');
+      try {
+        first = Long.parseLong(cursor.substring(0, dot));
+        skip = Integer.parseInt(cursor.substring(dot + 1));
+      } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+        throw new IllegalArgumentException("Not a page cursor: " + cursor);
+      }
+      if (skip < 0) {
+        throw new IllegalArgumentException("Not a page cursor: " + cursor);
+      }
+    }
+
+    // Ask for one more than needed to learn whether there is a next page.
+    int wanted = (int) Math.min(Integer.MAX_VALUE, (long) skip + limit + 1);
+    List<Event> events = tree.overlapping(window.start(), window.end(), first, wanted);
+    int from = 0;
+    while (from < skip && from < events.size() && events.get(from).getInterval() == first) {
+      from++;
+    }
+    int to = (int) Math.min(events.size(), (long) from + limit);
+    List<Event> page = new ArrayList<>(events.subList(from, to));
+    if (to == events.size() || page.isEmpty()) {
+      return new EventPage(page, null);
+    }
+
+    long last = page.get(page.size() - 1).getInterval();
+    int count = last == first ? from : 0;
+    for (Event event : page) {
+      if (event.getInterval() == last) {
+        count++;
+      }
+    }
+    return new EventPage(page, last + "." + count);
+  }
+}
@@ -0,0 +1,473 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Event store kept in a directory, so the calendar survives a restart. The directory holds two
+ * files:
+ *
+ * <ul>
+ *   <li>{@code events.snapshot}, an {@link EventSnapshot} of the calendar as of the last
+ *       {@link #compact}. It is memory-mapped when the store opens, so even a very large calendar
+ *       opens without parsing anything.
+ *   <li>{@code events.log}, every change made since then, appended one record at a time.
+ * </ul>
+ *
+ * <p>Once the log grows past a size given when the store is opened, the store compacts itself,
+ * so a restart only ever replays a bounded log.
+ *
+ * Readers never lock: {@link #getState} hands out an immutable {@link CalendarState} that each
+ * change replaces once it is complete, so an update is seen either whole or not at all.
+ *
+ * <p>Both files carry a generation number. A log whose generation does not match the snapshot was
+ * left behind by a compaction that stopped halfway and has already been folded into the
+ * snapshot, so it is dropped on open. A record cut short by a crash is dropped as well, while a
+ * record of an unknown type makes {@link #open} fail rather than guess what it meant.
+ */
+public final class FileEventStore implements EventStore {
+  private static final String SNAPSHOT = "events.snapshot";
+  private static final String LOG = "events.log";
+  private static final int LOG_MAGIC = 0x45564c31; // "EVL1"
+  private static final byte ADD = 1;
+  private static final byte REMOVE = 2;
+  // Followed by the event to remove and then the one to add in its place.
+  private static final byte REPLACE = 3;
+  // The magic number and the generation.
+  private static final int LOG_HEADER = 12;
+
+  /** How long the log may grow before {@link #open(Path)} stores compact themselves. */
+  public static final long DEFAULT_COMPACT_AFTER = 64L << 20;
+
+  private final Path directory;
+  private final long compactAfter;
+  private final AttendeeIndex index = new AttendeeIndex();
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  // The calendar is the snapshot, minus the snapshot events that were removed since, plus the
+  // events added since.
+  private EventSnapshot snapshot;
+  private BitSet removed = new BitSet();
+  private List<Event> added = new ArrayList<>();
+  // What readers see, rebuilt after every change.
+  private volatile CalendarState state;
+  // The time index of the calendar being changed, once a reader has had the state build it.
+  private EventTimeIndex byTime;
+
+  private DataOutputStream log;
+  // How many bytes the log holds, including its header.
+  private long logLength;
+
+  private FileEventStore(Path directory, long compactAfter) {
+    this.directory = directory;
+    this.compactAfter = compactAfter;
+  }
+
+  /**
+   * Opens the store in {@code directory}, creating an empty one if there is none yet. The store
+   * compacts itself whenever its log grows past {@link #DEFAULT_COMPACT_AFTER} bytes.
+   */
+  public static FileEventStore open(Path directory) throws IOException {
+    return open(directory, DEFAULT_COMPACT_AFTER);
+  }
+
+  /**
+   * Same as {@link #open(Path)}, but compacts whenever the log grows past {@code compactAfter}
+   * bytes, including right away if the log it opens with is already that long.
+   */
+  public static FileEventStore open(Path directory, long compactAfter) throws IOException {
+    Files.createDirectories(directory);
+    FileEventStore store = new FileEventStore(directory, compactAfter);
+    Path snapshotFile = directory.resolve(SNAPSHOT);
+    store.snapshot =
+        Files.exists(snapshotFile) ? EventSnapshot.open(snapshotFile) : EventSnapshot.EMPTY;
+    AttendeeIndex.Editor editor = store.index.edit();
+    store.snapshot.loadInto(editor);
+    store.replayLog(editor);
+    editor.publish();
+    store.publishState();
+    if (store.logLength > compactAfter) {
+      store.compact();
+    }
+    return store;
+  }
+
+  @Override
+  public CalendarState getState() {
+    return state;
+  }
+
+  @Override
+  public AttendeeIndex getIndex() {
+    return index;
+  }
+
+  @Override
+  public synchronized void add(Event event) {
+    append(ADD, event);
+    AttendeeIndex.Editor editor = edit();
+    apply(ADD, event, editor);
+    publish(editor);
+    notifyListeners(event);
+    compactIfLong();
+  }
+
+  @Override
+  public synchronized boolean remove(Event event) {
+    if (!contains(event)) {
+      return false;
+    }
+    append(REMOVE, event);
+    AttendeeIndex.Editor editor = edit();
+    apply(REMOVE, event, editor);
+    publish(editor);
+    notifyListeners(event);
+    compactIfLong();
+    return true;
+  }
+
+  @Override
+  public synchronized boolean replace(Event event, Event replacement) {
+    if (!contains(event)) {
+      return false;
+    }
+    // One record, so a crash cannot leave only half of the change in the log.
+    append(REPLACE, event);
+    appendEvent(replacement);
+    AttendeeIndex.Editor editor = edit();
+    apply(REMOVE, event, editor);
+    apply(ADD, replacement, editor);
+    publish(editor);
+    notifyListeners(event);
+    notifyListeners(replacement);
+    compactIfLong();
+    return true;
+  }
+
+  @Override
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Writes the current calendar out as a new snapshot and starts an empty log, so that the next
+   * open does not have to replay anything.
+   */
+  public synchronized void compact() throws IOException {
+    long generation = snapshot.generation() + 1;
+    Path next = directory.resolve(SNAPSHOT + ".tmp");
+    EventSnapshot.write(next, getEvents(), generation);
+    Path snapshotFile = directory.resolve(SNAPSHOT);
+    Files.move(next, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    snapshot = EventSnapshot.open(snapshotFile);
+    removed = new BitSet();
+    added = new ArrayList<>();
+    publishState();
+    log.close();
+    startLog();
+  }
+
+  private void compactIfLong() {
+    if (logLength > compactAfter) {
+      try {
+        compact();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    log.close();
+  }
+
+  /**
+   * Applies every complete record of a log that belongs to the snapshot, then reopens the log for
+   * appending after the last of them.
+   */
+  private void replayLog(AttendeeIndex.Editor editor) throws IOException {
+    Path logFile = directory.resolve(LOG);
+    if (!Files.exists(logFile)) {
+      startLog();
+      return;
+    }
+
+    long fileLength = Files.size(logFile);
+    long validLength = 0;
+    try (InputStream file = Files.newInputStream(logFile);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+      if (in.readInt() != LOG_MAGIC || in.readLong() != snapshot.generation()) {
+        validLength = -1;
+      } else {
+        validLength = LOG_HEADER;
+        while (true) {
+          byte op = in.readByte();
+          if (op != ADD && op != REMOVE && op != REPLACE) {
+            throw new IOException("Corrupt log: unknown record type " + op + " at " + validLength);
+          }
+          Event event = readEvent(in, fileLength - validLength - 1);
+          long length = recordLength(event);
+          if (op == REPLACE) {
+            Event replacement = readEvent(in, fileLength - validLength - length);
+            length += recordLength(replacement) - 1;
+            apply(REMOVE, event, editor);
+            apply(ADD, replacement, editor);
+          } else {
+            apply(op, event, editor);
+          }
+          validLength += length;
+        }
+      }
+    } catch (EOFException e) {
+      // The log ends here, possibly partway through a record.
+    }
+
+    if (validLength < LOG_HEADER) {
+      startLog();
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+      channel.truncate(validLength);
+    }
+    log = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(logFile.toFile(), true)));
+    logLength = validLength;
+  }
+
+  /** Starts an empty log for the current snapshot generation. */
+  private void startLog() throws IOException {
+    log = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(directory.resolve(LOG).toFile(), false)));
+    log.writeInt(LOG_MAGIC);
+    log.writeLong(snapshot.generation());
+    log.flush();
+    logLength = LOG_HEADER;
+  }
+
+  private void append(byte op, Event event) {
+    try {
+      log.writeByte(op);
+      logLength++;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    appendEvent(event);
+  }
+
+  private void appendEvent(Event event) {
+    try {
+      log.writeUTF(event.getTitle());
+      log.writeInt(event.getWhen().start());
+      log.writeInt(event.getWhen().duration());
+      log.writeInt(event.getAttendees().size());
+      for (String attendee : event.getAttendees()) {
+        log.writeUTF(attendee);
+      }
+      log.flush();
+      logLength += recordLength(event) - 1;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads an event written by {@link #appendEvent}, with {@code available} bytes left in the file.
+   * An attendee count that cannot fit in what is left is taken for a record cut short.
+   */
+  private static Event readEvent(DataInputStream in, long available) throws IOException {
+    String title = in.readUTF();
+    int start = in.readInt();
+    int duration = in.readInt();
+    int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Corrupt log: " + count + " attendees");
+    }
+    // Every attendee takes at least the two bytes of its length.
+    if (count > (available - utfLength(title) - 12) / 2) {
+      throw new EOFException();
+    }
+    List<String> attendees = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      attendees.add(in.readUTF());
+    }
+    return new Event(title, TimeRange.fromStartDuration(start, duration), attendees);
+  }
+
+  /** Returns how many bytes {@link #append} wrote for {@code event}, including the op. */
+  private static long recordLength(Event event) {
+    long length = 1 + utfLength(event.getTitle()) + 4 + 4 + 4;
+    for (String attendee : event.getAttendees()) {
+      length += utfLength(attendee);
+    }
+    return length;
+  }
+
+  /** Returns how many bytes {@code DataOutput.writeUTF} uses for {@code value}. */
+  private static int utfLength(String value) {
+    int length = 2;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c >= 0x0001 && c <= 0x007F) {
+        length += 1;
+      } else if (c > 0x07FF) {
+        length += 3;
+      } else {
+        length += 2;
+      }
+    }
+    return length;
+  }
+
+  private void apply(byte op, Event event, AttendeeIndex.Editor index) {
+    if (op == ADD) {
+      event.internAttendees();
+      added.add(event);
+      index.add(event);
+      if (byTime != null) {
+        byTime = byTime.with(event);
+      }
+    } else if (removeFromCalendar(event)) {
+      index.remove(event);
+      if (byTime != null) {
+        byTime = byTime.without(event);
+      }
+    }
+  }
+
+  /**
+   * Starts a change to the calendar readers see now. If a reader has had that state build its time
+   * index, the index is kept up to date from here on.
+   */
+  private AttendeeIndex.Editor edit() {
+    if (byTime == null) {
+      byTime = state.builtTimeIndex();
+    }
+    return index.edit();
+  }
+
+  /** Makes a change applied through {@code editor} visible to readers. */
+  private void publish(AttendeeIndex.Editor editor) {
+    editor.publish();
+    publishState();
+  }
+
+  private void publishState() {
+    CalendarView events =
+        new CalendarView(snapshot, (BitSet) removed.clone(), new ArrayList<>(added));
+    state = new CalendarState(events, index.snapshot(), byTime);
+  }
+
+  private boolean contains(Event event) {
+    return added.contains(event) || indexInSnapshot(event) >= 0;
+  }
+
+  private boolean removeFromCalendar(Event event) {
+    int i = added.lastIndexOf(event);
+    if (i >= 0) {
+      added.remove(i);
+      return true;
+    }
+
+    i = indexInSnapshot(event);
+    if (i >= 0) {
+      removed.set(i);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Finds a snapshot event equal to {@code event} that has not been removed yet, by a binary search
+   * on its interval.
+   */
+  private int indexInSnapshot(Event event) {
+    return snapshot.find(event, removed);
+  }
+
+  private void notifyListeners(Event event) {
+    for (Listener listener : listeners) {
+      listener.eventChanged(event);
+    }
+  }
+
+  /** Read-only view of the calendar at one point in time. Snapshot events are decoded lazily. */
+  private static final class CalendarView extends AbstractCollection<Event> {
+    private final EventSnapshot snapshot;
+    private final BitSet removed;
+    private final List<Event> added;
+
+    CalendarView(EventSnapshot snapshot, BitSet removed, List<Event> added) {
+      this.snapshot = snapshot;
+      this.removed = removed;
+      this.added = added;
+    }
+
+    @Override
+    public int size() {
+      return snapshot.size() - removed.cardinality() + added.size();
+    }
+
+    @Override
+    public Iterator<Event> iterator() {
+      return new Iterator<Event>() {
+        private int next = removed.nextClearBit(0);
+        private final Iterator<Event> rest = added.iterator();
+
+        @Override
+        public boolean hasNext() {
+          return next < snapshot.size() || rest.hasNext();
+        }
+
+        @Override
+        public Event next() {
+          if (next < snapshot.size()) {
+            Event event = snapshot.event(next);
+            next = removed.nextClearBit(next + 1);
+            return event;
+          }
+          if (!rest.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return rest.next();
+        }
+      };
+    }
+  }
+}
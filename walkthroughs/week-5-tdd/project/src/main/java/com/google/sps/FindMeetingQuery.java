@@ -14,10 +14,592 @@
 
 package com.google.sps;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public final class FindMeetingQuery {
+  /**
+   * Returns every range of the day in which all of the attendees of {@code request} are free for
+   * at least {@code request.getDuration()} minutes. The ranges are returned in ascending order and
+   * never touch or overlap each other.
+   */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-    throw new UnsupportedOperationException("TODO: Implement this method.");
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    return Intervals.toTimeRanges(mandatoryFree(events, request));
+  }
+
+  /**
+   * Returns the ranges inside {@code window} in which all of the attendees of {@code request} are
+   * free for at least {@code request.getDuration()} minutes, with the same rules as
+   * {@link #query(Collection, MeetingRequest)}. Only the events of {@code store} that overlap the
+   * window are looked at, so narrow windows stay cheap on a large calendar.
+   */
+  public Collection<TimeRange> query(EventStore store, MeetingRequest request, TimeRange window) {
+    if (request.getDuration() > window.duration()) {
+      return Collections.emptyList();
+    }
+
+    Collection<Event> events = store.getEvents(window);
+    int[] attendees = request.getAttendeeIds();
+    long[] busy = new long[attendees.length == 0 ? 0 : events.size()];
+    int count = 0;
+    if (attendees.length > 0) {
+      for (Event event : events) {
+        if (AttendeeSet.intersects(event.getAttendeeIds(), attendees)) {
+          busy[count++] = event.getInterval();
+        }
+      }
+    }
+    // The store hands the events back in time order, so the busy intervals are already sorted.
+    return Intervals.toTimeRanges(Intervals.complement(
+        busy, count, window.start(), window.end(), request.getDuration()));
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but reads the free time of the attendees
+   * from {@code index} instead of scanning every event. The index keeps each attendee's free time
+   * for the day, so the cost is intersecting a few short lists, shortest first, rather than
+   * depending on how many events they have.
+   */
+  public Collection<TimeRange> query(AttendeeIndex index, MeetingRequest request) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    Map<String, long[]> free = index.freeIntervals(request.getAttendees(), 0, 0);
+    return Intervals.toTimeRanges(intersectFree(
+        free.values(), TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end(), request.getDuration()));
+  }
+
+  /**
+   * Same as {@link #query(AttendeeIndex, MeetingRequest)}, but combines the attendees' busy time
+   * as {@link DayBitmap}s: one bit per minute, a word-wise OR per attendee, and free runs found a
+   * word at a time with {@code Long.numberOfTrailingZeros}. The cost does not depend on how the
+   * busy time is split up, which suits requests with many attendees whose free time is not cached.
+   */
+  public Collection<TimeRange> queryWithBitmaps(AttendeeIndex index, MeetingRequest request) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    return Intervals.toTimeRanges(
+        DayBitmap.freeRuns(index.busyBits(request.getAttendees()), request.getDuration()));
+  }
+
+  /**
+   * Returns the ranges in which every mandatory attendee and as many optional attendees as
+   * possible are free for at least {@code request.getDuration()} minutes.
+   *
+   * <p>If all optional attendees can make it, this is the same as treating them as mandatory. If
+   * nobody optional can make it, this is the same as {@link #query}, except that a request with
+   * only optional attendees then gets no ranges at all. In between, the ranges are the longest
+   * windows in which the best possible number of optional attendees are free; those windows may
+   * overlap each other since different people can be missing from each one.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(
+      Collection<Event> events, MeetingRequest request) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    long[] gaps = mandatoryFree(events, request);
+    if (request.getOptionalAttendees().isEmpty() || gaps.length == 0) {
+      return Intervals.toTimeRanges(gaps);
+    }
+    return Intervals.toTimeRanges(
+        maximizeOptional(gaps, optionalBusy(events, request), request));
+  }
+
+  /**
+   * Same as {@link #queryWithOptionalAttendees(Collection, MeetingRequest)}, but reads the busy
+   * time of the attendees from {@code index} instead of scanning every event.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(
+      AttendeeIndex index, MeetingRequest request) {
+    return queryWithOptionalAttendees(index, request, QueryMetrics.Timer.NONE);
+  }
+
+  /**
+   * Same as {@link #queryWithOptionalAttendees(AttendeeIndex, MeetingRequest)}, telling
+   * {@code timer} as each phase of the search ends.
+   */
+  Collection<TimeRange> queryWithOptionalAttendees(
+      AttendeeIndex index, MeetingRequest request, QueryMetrics.Timer timer) {
+    Set<String> attendees = new HashSet<>();
+    addAttendees(request, attendees);
+    Map<String, long[]> busy = index.busyIntervals(attendees);
+    timer.lap(QueryMetrics.Phase.FILTER);
+    return Intervals.toTimeRanges(answer(busy, request, timer));
+  }
+
+  /**
+   * Returns up to {@code k} slots of exactly {@code request.getDuration()} minutes in which every
+   * mandatory attendee is free, best first. Slots with fewer optional attendees busy come first,
+   * then slots with fewer minutes outside {@code preferredHours}, then earlier slots. Pass
+   * {@code TimeRange.WHOLE_DAY} to have no preferred hours. Slots may overlap each other.
+   */
+  public List<TimeRange> queryTopK(
+      Collection<Event> events, MeetingRequest request, int k, TimeRange preferredHours) {
+    checkK(k);
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    List<long[]> optionalBusy = new ArrayList<>();
+    for (long[] busy : optionalBusy(events, request)) {
+      optionalBusy.add(Intervals.merge(busy, busy.length));
+    }
+    return rank(mandatoryFree(events, request), optionalBusy, request, k, preferredHours);
+  }
+
+  /**
+   * Same as {@link #queryTopK(Collection, MeetingRequest, int, TimeRange)}, but reads the busy time
+   * of the attendees from {@code index} instead of scanning every event.
+   */
+  public List<TimeRange> queryTopK(
+      AttendeeIndex index, MeetingRequest request, int k, TimeRange preferredHours) {
+    return queryTopK(index, request, k, preferredHours, QueryMetrics.Timer.NONE);
+  }
+
+  /**
+   * Same as {@link #queryTopK(AttendeeIndex, MeetingRequest, int, TimeRange)}, telling
+   * {@code timer} as each phase of the search ends.
+   */
+  List<TimeRange> queryTopK(AttendeeIndex index, MeetingRequest request, int k,
+      TimeRange preferredHours, QueryMetrics.Timer timer) {
+    checkK(k);
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    Set<String> attendees = new HashSet<>();
+    addAttendees(request, attendees);
+    Map<String, long[]> busy = index.busyIntervals(attendees);
+    timer.lap(QueryMetrics.Phase.FILTER);
+    List<long[]> optionalBusy = new ArrayList<>();
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalBusy.add(busyOf(busy, attendee));
+    }
+    List<TimeRange> ranked =
+        rank(mandatoryFree(busy, request, timer), optionalBusy, request, k, preferredHours);
+    timer.lap(QueryMetrics.Phase.GAPS);
+    return ranked;
+  }
+
+  /**
+   * Returns every slot in which all mandatory attendees and at least {@code minOptional} of the
+   * optional attendees are free for {@code request.getDuration()} minutes, with how many optional
+   * attendees are free in each. Meant for large optional groups, where having everyone is hopeless
+   * and the best few slots hide how many near misses there are. Slots are ordered by start, see
+   * {@link AttendanceSlot} for what each one covers.
+   *
+   * <p>The cost is one sort of the optional attendees' busy intervals, rather than one count per
+   * attendee for every candidate start.
+   *
+   * @throws IllegalArgumentException if {@code minOptional} is negative
+   */
+  public List<AttendanceSlot> queryWithMinimumOptional(
+      AttendeeIndex index, MeetingRequest request, int minOptional) {
+    if (minOptional < 0) {
+      throw new IllegalArgumentException("minOptional must not be negative: " + minOptional);
+    }
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()
+        || minOptional > request.getOptionalAttendees().size()) {
+      return Collections.emptyList();
+    }
+
+    Set<String> attendees = new HashSet<>();
+    addAttendees(request, attendees);
+    Map<String, long[]> busy = index.busyIntervals(attendees);
+    long[] gaps = mandatoryFree(busy, request, QueryMetrics.Timer.NONE);
+    List<long[]> optionalBusy = new ArrayList<>();
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalBusy.add(busyOf(busy, attendee));
+    }
+    return AttendanceThresholdSweep.slots(
+        gaps, optionalBusy, (int) request.getDuration(), minOptional);
+  }
+
+  /**
+   * Returns the ranges in which every mandatory attendee is free and one of {@code rooms} that is
+   * big enough and has the equipment asked for by {@code request} stays free, for at least
+   * {@code request.getDuration()} minutes. Each range comes with the room to book; the meeting
+   * must stay in that room for the whole range, so two rooms free one after the other do not add
+   * up. Where several rooms are free over the same range, the smallest one is picked, and a range
+   * lying inside another returned range is left out. Ranges are ordered by start. Optional
+   * attendees are not taken into account.
+   *
+   * <p>The attendees' gaps come from the free time {@code index} keeps per day, as in
+   * {@link #query(AttendeeIndex, MeetingRequest)}. The free time of every room is merged ahead of
+   * time by {@code rooms}, so the cost is one linear intersection with those gaps per suitable
+   * room.
+   */
+  public List<RoomSlot> queryWithRoom(
+      AttendeeIndex index, RoomIndex rooms, MeetingRequest request) {
+    long duration = request.getDuration();
+    if (duration > TimeRange.WHOLE_DAY.duration()) {
+      return Collections.emptyList();
+    }
+
+    Map<String, long[]> free = index.freeIntervals(request.getAttendees(), 0, 0);
+    long[] gaps = intersectFree(
+        free.values(), TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end(), duration);
+    if (gaps.length == 0) {
+      return Collections.emptyList();
+    }
+
+    // Each piece is packed as {interval, rank of its room}; rooms come smallest first.
+    List<Room> suitable = rooms.suitable(request.getRoomCapacity(), request.getRoomEquipment());
+    List<long[]> pieces = new ArrayList<>();
+    for (int rank = 0; rank < suitable.size(); rank++) {
+      for (long piece : Intervals.intersect(gaps, rooms.free(suitable.get(rank)))) {
+        if (Intervals.length(piece) >= duration) {
+          pieces.add(new long[] {piece, rank});
+        }
+      }
+    }
+    pieces.sort(Comparator.<long[]>comparingInt(piece -> Intervals.start(piece[0]))
+        .thenComparingInt(piece -> -Intervals.end(piece[0]))
+        .thenComparingLong(piece -> piece[1]));
+
+    // Earlier pieces start no later, so a piece lies inside one of them exactly when it does not
+    // end after the furthest end seen so far.
+    List<RoomSlot> result = new ArrayList<>();
+    int furthestEnd = Integer.MIN_VALUE;
+    for (long[] piece : pieces) {
+      if (Intervals.end(piece[0]) > furthestEnd) {
+        furthestEnd = Intervals.end(piece[0]);
+        result.add(new RoomSlot(
+            Intervals.toTimeRange(piece[0]), suitable.get((int) piece[1]).getName()));
+      }
+    }
+    return result;
+  }
+
+  private static void checkK(int k) {
+    if (k < 1) {
+      throw new IllegalArgumentException("k must be at least 1, was " + k);
+    }
+  }
+
+  /**
+   * Ranks the slots in {@code gaps}. As with {@link #maximizeOptional}, a request with only
+   * optional attendees gets no slots that none of them can make.
+   */
+  private static List<TimeRange> rank(long[] gaps, List<long[]> optionalBusy,
+      MeetingRequest request, int k, TimeRange preferredHours) {
+    SlotRanker ranker = new SlotRanker(gaps, optionalBusy, (int) request.getDuration(),
+        preferredHours, request.getAttendees().isEmpty());
+    return ranker.top(k);
+  }
+
+  /**
+   * Answers every request in {@code requests} as
+   * {@link #queryWithOptionalAttendees(Collection, MeetingRequest)} would, in the same order.
+   * {@code events} are indexed once for the whole batch rather than once per request.
+   */
+  public List<Collection<TimeRange>> queryAll(
+      Collection<Event> events, List<MeetingRequest> requests) {
+    return queryAll(new AttendeeIndex(events), requests);
+  }
+
+  /**
+   * Answers every request in {@code requests} as
+   * {@link #queryWithOptionalAttendees(AttendeeIndex, MeetingRequest)} would, in the same order.
+   *
+   * <p>The busy time of everyone named in the batch is read from {@code index} once. The requests
+   * are then answered in parallel on the common fork-join pool, without going back to the index,
+   * so later changes to the index do not affect a batch that is already running.
+   */
+  public List<Collection<TimeRange>> queryAll(
+      AttendeeIndex index, List<MeetingRequest> requests) {
+    Set<String> attendees = new HashSet<>();
+    for (MeetingRequest request : requests) {
+      addAttendees(request, attendees);
+    }
+    Map<String, long[]> busy = index.busyIntervals(attendees);
+
+    return IntStream.range(0, requests.size())
+        .parallel()
+        .<Collection<TimeRange>>mapToObj(
+            i -> Intervals.toTimeRanges(
+                answer(busy, requests.get(i), QueryMetrics.Timer.NONE)))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Answers {@code request} from the merged busy intervals of its attendees.
+   */
+  private static long[] answer(
+      Map<String, long[]> busy, MeetingRequest request, QueryMetrics.Timer timer) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Intervals.EMPTY;
+    }
+
+    long[] gaps = mandatoryFree(busy, request, timer);
+    if (request.getOptionalAttendees().isEmpty() || gaps.length == 0) {
+      return gaps;
+    }
+
+    List<long[]> optionalBusy = new ArrayList<>();
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalBusy.add(busyOf(busy, attendee));
+    }
+    long[] windows = maximizeOptional(gaps, optionalBusy, request);
+    timer.lap(QueryMetrics.Phase.GAPS);
+    return windows;
+  }
+
+  private static void addAttendees(MeetingRequest request, Set<String> attendees) {
+    attendees.addAll(request.getAttendees());
+    attendees.addAll(request.getOptionalAttendees());
+  }
+
+  private static long[] busyOf(Map<String, long[]> busy, String attendee) {
+    long[] intervals = busy.get(attendee);
+    return intervals == null ? Intervals.EMPTY : intervals;
+  }
+
+  /**
+   * Returns the ranges inside {@code window} in which every mandatory attendee and as many optional
+   * attendees as possible are free for at least {@code request.getDuration()} minutes, with the
+   * same rules as {@link #queryWithOptionalAttendees(AttendeeIndex, MeetingRequest)}.
+   *
+   * <p>{@code index} must hold {@code DatedEvent}s. The whole window, however many days or weeks
+   * long, is searched in one pass, so meetings may also span midnight. Attendees listed in
+   * {@code workingHours} are treated as busy outside of those hours in their own time zone; anyone
+   * else is available around the clock.
+   */
+  public List<EpochTimeRange> queryWindow(AttendeeIndex index, MeetingRequest request,
+      EpochTimeRange window, Map<String, WorkingHours> workingHours) {
+    return queryWindow(index, new RecurringEventIndex(), request, window, workingHours);
+  }
+
+  /**
+   * Same as {@link #queryWindow(AttendeeIndex, MeetingRequest, EpochTimeRange, Map)}, but the
+   * attendees are also busy during the occurrences of their series in {@code recurring}. Only the
+   * occurrences inside {@code window} are ever worked out.
+   */
+  public List<EpochTimeRange> queryWindow(AttendeeIndex index, RecurringEventIndex recurring,
+      MeetingRequest request, EpochTimeRange window, Map<String, WorkingHours> workingHours) {
+    if (request.getDuration() > window.duration()) {
+      return Collections.emptyList();
+    }
+
+    // The index keeps free time a day at a time, so the days the window reaches are read whole
+    // and cut down to the window by the intersection.
+    int firstDay = Math.floorDiv(window.start(), AttendeeIndex.DAY_MINUTES);
+    int lastDay = Math.floorDiv(window.end() - 1, AttendeeIndex.DAY_MINUTES);
+    Map<String, long[]> free = index.freeIntervals(request.getAttendees(), firstDay, lastDay);
+    List<long[]> mandatoryFree = new ArrayList<>();
+    for (String attendee : request.getAttendees()) {
+      long[] otherBusy =
+          otherBusyInWindow(recurring, attendee, window, workingHours.get(attendee));
+      mandatoryFree.add(otherBusy.length == 0
+          ? free.get(attendee)
+          : Intervals.intersect(free.get(attendee),
+              Intervals.complement(otherBusy, window.start(), window.end(), 1)));
+    }
+    long[] gaps =
+        intersectFree(mandatoryFree, window.start(), window.end(), request.getDuration());
+
+    if (!request.getOptionalAttendees().isEmpty() && gaps.length > 0) {
+      List<long[]> optionalBusy = new ArrayList<>();
+      for (String attendee : request.getOptionalAttendees()) {
+        optionalBusy.add(
+            busyInWindow(index, recurring, attendee, window, workingHours.get(attendee)));
+      }
+      gaps = maximizeOptional(gaps, optionalBusy, request);
+    }
+
+    List<EpochTimeRange> result = new ArrayList<>(gaps.length);
+    for (long gap : gaps) {
+      result.add(EpochTimeRange.fromStartEnd(Intervals.start(gap), Intervals.end(gap)));
+    }
+    return result;
+  }
+
+  /**
+   * Returns when {@code attendee} cannot meet inside {@code window}: their events and the
+   * occurrences of their series, plus any time outside of {@code hours} if they have working hours.
+   */
+  private static long[] busyInWindow(AttendeeIndex index, RecurringEventIndex recurring,
+      String attendee, EpochTimeRange window, WorkingHours hours) {
+    return Intervals.union(
+        index.busyIntervals(attendee), otherBusyInWindow(recurring, attendee, window, hours));
+  }
+
+  /**
+   * Returns the part of {@link #busyInWindow} that does not come from the index: the occurrences
+   * of the attendee's series and any time outside of {@code hours}.
+   */
+  private static long[] otherBusyInWindow(RecurringEventIndex recurring, String attendee,
+      EpochTimeRange window, WorkingHours hours) {
+    long[] series = recurring.busyIntervals(attendee, window);
+    if (hours == null) {
+      return series;
+    }
+
+    long[] offHours = Intervals.complement(
+        hours.workingIntervals(window), window.start(), window.end(), 1);
+    return Intervals.union(series, offHours);
+  }
+
+  /**
+   * Returns the time between {@code from} and {@code to} covered by every one of the merged arrays
+   * {@code free}, in pieces of at least {@code minLength} minutes. The shortest arrays are taken
+   * first, and pieces too short for the meeting are dropped as soon as they show up, so the work
+   * stops early once nothing is left.
+   */
+  private static long[] intersectFree(
+      Collection<long[]> free, int from, int to, long minLength) {
+    List<long[]> shortestFirst = new ArrayList<>(free);
+    shortestFirst.sort(Comparator.comparingInt(list -> list.length));
+
+    long[] result = to - from >= minLength ? new long[] {Intervals.of(from, to)} : Intervals.EMPTY;
+    for (long[] list : shortestFirst) {
+      if (result.length == 0) {
+        break;
+      }
+      long[] both = Intervals.intersect(result, list);
+      int count = 0;
+      for (long piece : both) {
+        if (Intervals.length(piece) >= minLength) {
+          both[count++] = piece;
+        }
+      }
+      result = Arrays.copyOf(both, count);
+    }
+    return result;
+  }
+
+  private static long[] concat(List<long[]> arrays) {
+    int total = 0;
+    for (long[] array : arrays) {
+      total += array.length;
+    }
+
+    long[] result = new long[total];
+    int count = 0;
+    for (long[] array : arrays) {
+      System.arraycopy(array, 0, result, count, array.length);
+      count += array.length;
+    }
+    return result;
+  }
+
+  /**
+   * Narrows {@code gaps} down to the windows that fit the most optional attendees.
+   */
+  private static long[] maximizeOptional(
+      long[] gaps, List<long[]> optionalBusy, MeetingRequest request) {
+    OptionalAttendeeSweep sweep = new OptionalAttendeeSweep(gaps, optionalBusy);
+    int fewestBusy = sweep.fewestBusy(request.getDuration());
+    if (fewestBusy == optionalBusy.size() && request.getAttendees().isEmpty()) {
+      return Intervals.EMPTY;
+    }
+    return sweep.windows(fewestBusy, request.getDuration());
+  }
+
+  /**
+   * Returns the gaps in which every mandatory attendee is free for long enough, scanning every
+   * event. Only events shared with at least one mandatory attendee have their time looked at.
+   */
+  private static long[] mandatoryFree(Collection<Event> events, MeetingRequest request) {
+    int[] attendees = request.getAttendeeIds();
+    long[] busy = new long[attendees.length == 0 ? 0 : events.size()];
+    int count = 0;
+    if (attendees.length > 0) {
+      for (Event event : events) {
+        if (AttendeeSet.intersects(event.getAttendeeIds(), attendees)) {
+          busy[count++] = event.getInterval();
+        }
+      }
+    }
+    return freeBetween(busy, count, request.getDuration());
+  }
+
+  /**
+   * Returns the gaps in which every mandatory attendee is free for long enough, given the merged
+   * busy intervals of at least those attendees. Large groups are merged in parallel with a
+   * {@link TournamentMerge}, which gives the same gaps.
+   */
+  private static long[] mandatoryFree(
+      Map<String, long[]> busyByAttendee, MeetingRequest request, QueryMetrics.Timer timer) {
+    List<long[]> perAttendee = new ArrayList<>();
+    for (String attendee : request.getAttendees()) {
+      perAttendee.add(busyOf(busyByAttendee, attendee));
+    }
+
+    long[] busy;
+    if (perAttendee.size() >= TournamentMerge.PARALLEL_THRESHOLD) {
+      busy = TournamentMerge.union(perAttendee);
+    } else {
+      busy = concat(perAttendee);
+      Intervals.sort(busy, busy.length);
+    }
+    timer.lap(QueryMetrics.Phase.SORT_MERGE);
+
+    long[] gaps = Intervals.complement(
+        busy, TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end(), request.getDuration());
+    timer.lap(QueryMetrics.Phase.GAPS);
+    return gaps;
+  }
+
+  /**
+   * Sorts the first {@code count} busy intervals, which may overlap, and returns the gaps of at
+   * least {@code duration} minutes they leave in the day. {@code busy} is reused as scratch space.
+   */
+  private static long[] freeBetween(long[] busy, int count, long duration) {
+    Intervals.sort(busy, count);
+    return Intervals.complement(
+        busy, count, TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end(), duration);
+  }
+
+  /**
+   * Groups the busy intervals of the events by optional attendee, one list per optional attendee
+   * of {@code request}. Attendees without any events get empty lists.
+   */
+  private static List<long[]> optionalBusy(Collection<Event> events, MeetingRequest request) {
+    int[] optionalAttendees = request.getOptionalAttendeeIds();
+    long[][] busy = new long[optionalAttendees.length][4];
+    int[] counts = new int[optionalAttendees.length];
+    for (Event event : events) {
+      int[] attendees = event.getAttendeeIds();
+      if (!AttendeeSet.intersects(attendees, optionalAttendees)) {
+        continue;
+      }
+      for (int attendee : attendees) {
+        int i = Arrays.binarySearch(optionalAttendees, attendee);
+        if (i < 0) {
+          continue;
+        }
+        if (counts[i] == busy[i].length) {
+          busy[i] = Arrays.copyOf(busy[i], counts[i] * 2);
+        }
+        busy[i][counts[i]++] = event.getInterval();
+      }
+    }
+
+    List<long[]> result = new ArrayList<>(request.getOptionalAttendees().size());
+    for (int i = 0; i < busy.length; i++) {
+      result.add(Arrays.copyOf(busy[i], counts[i]));
+    }
+    while (result.size() < request.getOptionalAttendees().size()) {
+      result.add(Intervals.EMPTY);
+    }
+    return result;
   }
 }
@@ -0,0 +1,117 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Event store that only keeps its events in memory, so they are gone once the server stops. Every
+ * change publishes a new {@link CalendarState} holding a copy of the list of events, which keeps
+ * reads free of locks at the cost of O(n) per change.
+ */
+public final class InMemoryEventStore implements EventStore {
+  private final AttendeeIndex index = new AttendeeIndex();
+  // Never changed once published; every change publishes a new state.
+  private volatile CalendarState state;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Creates a store holding {@code events}.
+   */
+  public InMemoryEventStore(Collection<Event> events) {
+    AttendeeIndex.Editor editor = index.edit();
+    for (Event event : events) {
+      editor.add(event);
+    }
+    editor.publish();
+    List<Event> copy = new ArrayList<>(events);
+    state = new CalendarState(
+        Collections.unmodifiableList(copy), index.snapshot(), new EventTimeIndex(copy));
+  }
+
+  @Override
+  public CalendarState getState() {
+    return state;
+  }
+
+  @Override
+  public AttendeeIndex getIndex() {
+    return index;
+  }
+
+  @Override
+  public synchronized void add(Event event) {
+    event.internAttendees();
+    List<Event> next = new ArrayList<>(state.getEvents());
+    next.add(event);
+    index.add(event);
+    publish(next, timeIndex().with(event));
+    notifyListeners(event);
+  }
+
+  @Override
+  public synchronized boolean remove(Event event) {
+    List<Event> next = new ArrayList<>(state.getEvents());
+    if (!next.remove(event)) {
+      return false;
+    }
+    index.remove(event);
+    publish(next, timeIndex().without(event));
+    notifyListeners(event);
+    return true;
+  }
+
+  @Override
+  public synchronized boolean replace(Event event, Event replacement) {
+    List<Event> next = new ArrayList<>(state.getEvents());
+    int i = next.indexOf(event);
+    if (i < 0) {
+      return false;
+    }
+    replacement.internAttendees();
+    next.set(i, replacement);
+    index.replace(event, replacement);
+    publish(next, timeIndex().without(event).with(replacement));
+    notifyListeners(event);
+    notifyListeners(replacement);
+    return true;
+  }
+
+  private EventTimeIndex timeIndex() {
+    return state.builtTimeIndex();
+  }
+
+  private void publish(List<Event> events, EventTimeIndex byTime) {
+    state = new CalendarState(Collections.unmodifiableList(events), index.snapshot(), byTime);
+  }
+
+  @Override
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void close() {}
+
+  private void notifyListeners(Event event) {
+    for (Listener listener : listeners) {
+      listener.eventChanged(event);
+    }
+  }
+}
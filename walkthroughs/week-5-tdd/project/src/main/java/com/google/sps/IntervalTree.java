@@ -0,0 +1,307 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Values keyed on packed {@link Intervals}, kept in a balanced binary tree ordered by interval.
+ * Every node also records the latest end and the earliest end in its subtree, so a query can skip
+ * any subtree that cannot hold a match. Finding the values overlapping a window, or those covering
+ * a point in time, takes O(log n + k) for k matches. Finding the values contained in a window
+ * only visits intervals starting inside it, and skips subtrees that all end too late.
+ *
+ * <p>Several values may share an interval. Results come out in interval order. Nodes are never
+ * changed once built: adding or removing copies the O(log n) nodes on the path from the root and
+ * shares the rest, so {@link #copy} is O(1) and a copy never sees later changes to the original.
+ * A tree that is no longer changed can be read from any number of threads; trees are not safe to
+ * change from several threads at once.
+ */
+public final class IntervalTree<T> {
+  private Node<T> root;
+  private int size;
+
+  /**
+   * Returns a tree holding {@code values}, where {@code values.get(i)} is keyed on
+   * {@code intervals[i]}. The intervals must already be sorted, as by {@link Intervals#sort}, which
+   * lets the tree be built in O(n) without any rebalancing.
+   */
+  public static <T> IntervalTree<T> fromSorted(long[] intervals, List<T> values) {
+    if (intervals.length != values.size()) {
+      throw new IllegalArgumentException("Expected one value per interval");
+    }
+    for (int i = 1; i < intervals.length; i++) {
+      if (intervals[i - 1] > intervals[i]) {
+        throw new IllegalArgumentException("Intervals are not sorted at " + i);
+      }
+    }
+
+    IntervalTree<T> tree = new IntervalTree<>();
+    tree.root = build(intervals, values, 0, intervals.length);
+    tree.size = intervals.length;
+    return tree;
+  }
+
+  private static <T> Node<T> build(long[] intervals, List<T> values, int from, int to) {
+    if (from == to) {
+      return null;
+    }
+    int mid = (from + to) >>> 1;
+    return new Node<>(intervals[mid], values.get(mid), build(intervals, values, from, mid),
+        build(intervals, values, mid + 1, to));
+  }
+
+  /**
+   * Returns a tree holding the same values as this one, in O(1). Later changes to either tree do
+   * not show in the other.
+   */
+  public IntervalTree<T> copy() {
+    IntervalTree<T> copy = new IntervalTree<>();
+    copy.root = root;
+    copy.size = size;
+    return copy;
+  }
+
+  /**
+   * Returns how many values the tree holds.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Adds {@code value} keyed on the packed {@code interval}.
+   */
+  public void add(long interval, T value) {
+    root = add(root, interval, value);
+    size++;
+  }
+
+  private static <T> Node<T> add(Node<T> node, long interval, T value) {
+    if (node == null) {
+      return new Node<>(interval, value, null, null);
+    }
+    if (interval < node.interval) {
+      return balance(node.interval, node.value, add(node.left, interval, value), node.right);
+    }
+    return balance(node.interval, node.value, node.left, add(node.right, interval, value));
+  }
+
+  /**
+   * Removes one value equal to {@code value} keyed on the packed {@code interval}. Returns
+   * {@code false} if there is none.
+   */
+  public boolean remove(long interval, T value) {
+    Node<T> after = remove(root, interval, value);
+    if (after == root) {
+      return false;
+    }
+    root = after;
+    size--;
+    return true;
+  }
+
+  /** Returns {@code node} itself if it holds no such value. */
+  private static <T> Node<T> remove(Node<T> node, long interval, T value) {
+    if (node == null) {
+      return null;
+    }
+
+    if (interval < node.interval) {
+      return withLeft(node, remove(node.left, interval, value));
+    }
+    if (interval > node.interval) {
+      return withRight(node, remove(node.right, interval, value));
+    }
+    if (node.value.equals(value)) {
+      if (node.left == null) {
+        return node.right;
+      }
+      if (node.right == null) {
+        return node.left;
+      }
+      Node<T> successor = node.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      return balance(successor.interval, successor.value, node.left, removeFirst(node.right));
+    }
+    // Rotations can leave equal intervals on either side.
+    Node<T> left = remove(node.left, interval, value);
+    if (left != node.left) {
+      return withLeft(node, left);
+    }
+    return withRight(node, remove(node.right, interval, value));
+  }
+
+  private static <T> Node<T> withLeft(Node<T> node, Node<T> left) {
+    return left == node.left ? node : balance(node.interval, node.value, left, node.right);
+  }
+
+  private static <T> Node<T> withRight(Node<T> node, Node<T> right) {
+    return right == node.right ? node : balance(node.interval, node.value, node.left, right);
+  }
+
+  private static <T> Node<T> removeFirst(Node<T> node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node.interval, node.value, removeFirst(node.left), node.right);
+  }
+
+  /**
+   * Returns the values whose intervals overlap {@code from} (inclusive) to {@code to} (exclusive).
+   */
+  public List<T> overlapping(int from, int to) {
+    List<T> result = new ArrayList<>();
+    overlapping(root, from, to, result);
+    return result;
+  }
+
+  /**
+   * Returns, in interval order, up to {@code limit} of the values whose intervals overlap
+   * {@code from} (inclusive) to {@code to} (exclusive) and are not ordered before the packed
+   * {@code first}. Paging through a window this way costs O(log n + limit) per page.
+   */
+  public List<T> overlapping(int from, int to, long first, int limit) {
+    List<T> result = new ArrayList<>(Math.min(limit, 16));
+    overlapping(root, from, to, first, limit, result);
+    return result;
+  }
+
+  private static <T> void overlapping(Node<T> node, int from, int to, List<T> result) {
+    overlapping(node, from, to, Long.MIN_VALUE, Integer.MAX_VALUE, result);
+  }
+
+  private static <T> void overlapping(
+      Node<T> node, int from, int to, long first, int limit, List<T> result) {
+    if (node == null || node.maxEnd <= from || result.size() == limit) {
+      return;
+    }
+    if (node.interval >= first) {
+      // Only values at or after this node can be wanted otherwise.
+      overlapping(node.left, from, to, first, limit, result);
+    }
+    if (Intervals.start(node.interval) >= to || result.size() == limit) {
+      // Everything to the right starts even later.
+      return;
+    }
+    if (node.interval >= first && Intervals.end(node.interval) > from) {
+      result.add(node.value);
+    }
+    overlapping(node.right, from, to, first, limit, result);
+  }
+
+  /**
+   * Returns the values whose intervals contain the minute {@code time}.
+   */
+  public List<T> stabbing(int time) {
+    return overlapping(time, time + 1);
+  }
+
+  /**
+   * Returns the values whose intervals lie completely inside {@code from} (inclusive) to
+   * {@code to} (exclusive).
+   */
+  public List<T> containedIn(int from, int to) {
+    List<T> result = new ArrayList<>();
+    containedIn(root, from, to, result);
+    return result;
+  }
+
+  private static <T> void containedIn(Node<T> node, int from, int to, List<T> result) {
+    if (node == null || node.minEnd > to) {
+      return;
+    }
+    int start = Intervals.start(node.interval);
+    if (start >= from) {
+      containedIn(node.left, from, to, result);
+    }
+    if (start >= from && start < to && Intervals.end(node.interval) <= to) {
+      result.add(node.value);
+    }
+    if (start < to) {
+      containedIn(node.right, from, to, result);
+    }
+  }
+
+  /** Returns a balanced node holding {@code interval} and {@code value} over two subtrees. */
+  private static <T> Node<T> balance(long interval, T value, Node<T> left, Node<T> right) {
+    int skew = height(left) - height(right);
+    if (skew > 1) {
+      if (height(left.left) < height(left.right)) {
+        left = rotateLeft(left);
+      }
+      return new Node<>(left.interval, left.value, left.left,
+          new Node<>(interval, value, left.right, right));
+    }
+    if (skew < -1) {
+      if (height(right.right) < height(right.left)) {
+        right = rotateRight(right);
+      }
+      return new Node<>(right.interval, right.value,
+          new Node<>(interval, value, left, right.left), right.right);
+    }
+    return new Node<>(interval, value, left, right);
+  }
+
+  private static <T> Node<T> rotateLeft(Node<T> node) {
+    Node<T> right = node.right;
+    return new Node<>(right.interval, right.value,
+        new Node<>(node.interval, node.value, node.left, right.left), right.right);
+  }
+
+  private static <T> Node<T> rotateRight(Node<T> node) {
+    Node<T> left = node.left;
+    return new Node<>(left.interval, left.value, left.left,
+        new Node<>(node.interval, node.value, left.right, node.right));
+  }
+
+  private static int height(Node<?> node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static final class Node<T> {
+    final long interval;
+    final T value;
+    final Node<T> left;
+    final Node<T> right;
+    final int height;
+    // The latest and earliest end of any interval in this subtree.
+    final int maxEnd;
+    final int minEnd;
+
+    Node(long interval, T value, Node<T> left, Node<T> right) {
+      this.interval = interval;
+      this.value = value;
+      this.left = left;
+      this.right = right;
+      height = 1 + Math.max(height(left), height(right));
+      int maxEnd = Intervals.end(interval);
+      int minEnd = maxEnd;
+      if (left != null) {
+        maxEnd = Math.max(maxEnd, left.maxEnd);
+        minEnd = Math.min(minEnd, left.minEnd);
+      }
+      if (right != null) {
+        maxEnd = Math.max(maxEnd, right.maxEnd);
+        minEnd = Math.min(minEnd, right.minEnd);
+      }
+      this.maxEnd = maxEnd;
+      this.minEnd = minEnd;
+    }
+  }
+}
@@ -0,0 +1,249 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Helpers for working with spans of time packed into a single {@code long}. The start goes in the
+ * high 32 bits and the exclusive end in the low 32 bits, so an array of intervals is a flat block
+ * of primitives and sorting it with {@link Arrays#sort(long[])} orders it by start, then by end.
+ * This only holds for non-negative times, which is all the calendar uses.
+ *
+ * <p>Bulk operations that take a "merged" array expect it to be sorted with no two intervals
+ * touching or overlapping, and always return arrays of that shape. The input arrays are never
+ * changed unless the method says so.
+ */
+public final class Intervals {
+  /** An array holding no intervals. */
+  public static final long[] EMPTY = new long[0];
+
+  private Intervals() {
+    // Disallow instances.
+  }
+
+  /**
+   * Packs the interval from {@code start} (inclusive) to {@code end} (exclusive).
+   */
+  public static long of(int start, int end) {
+    return ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the inclusive start of a packed interval.
+   */
+  public static int start(long interval) {
+    return (int) (interval >>> 32);
+  }
+
+  /**
+   * Returns the exclusive end of a packed interval.
+   */
+  public static int end(long interval) {
+    return (int) interval;
+  }
+
+  /**
+   * Returns the number of minutes covered by a packed interval.
+   */
+  public static int length(long interval) {
+    return end(interval) - start(interval);
+  }
+
+  /**
+   * Packs {@code range}.
+   */
+  public static long of(TimeRange range) {
+    return of(range.start(), range.end());
+  }
+
+  /**
+   * Converts a packed interval back into a {@code TimeRange}.
+   */
+  public static TimeRange toTimeRange(long interval) {
+    return TimeRange.fromStartEnd(start(interval), end(interval), false);
+  }
+
+  /**
+   * Packs every range in {@code ranges}, keeping their order.
+   */
+  public static long[] fromTimeRanges(Collection<TimeRange> ranges) {
+    long[] intervals = new long[ranges.size()];
+    int i = 0;
+    for (TimeRange range : ranges) {
+      intervals[i++] = of(range);
+    }
+    return intervals;
+  }
+
+  /**
+   * Converts the first {@code length} intervals of {@code intervals} into {@code TimeRange}s.
+   */
+  public static List<TimeRange> toTimeRanges(long[] intervals, int length) {
+    List<TimeRange> ranges = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      ranges.add(toTimeRange(intervals[i]));
+    }
+    return ranges;
+  }
+
+  /**
+   * Converts every interval of {@code intervals} into a {@code TimeRange}.
+   */
+  public static List<TimeRange> toTimeRanges(long[] intervals) {
+    return toTimeRanges(intervals, intervals.length);
+  }
+
+  /**
+   * Sorts the first {@code length} intervals of {@code intervals} by start, then by end, in place.
+   */
+  public static void sort(long[] intervals, int length) {
+    Arrays.sort(intervals, 0, length);
+  }
+
+  /**
+   * Merges the first {@code length} intervals of {@code sorted}, which must be sorted, in place.
+   * Empty intervals are dropped, and intervals that touch or overlap are combined. Returns how many
+   * intervals are left at the front of the array.
+   */
+  public static int mergeInPlace(long[] sorted, int length) {
+    int count = 0;
+    int start = 0;
+    int end = -1;
+    for (int i = 0; i < length; i++) {
+      long interval = sorted[i];
+      if (length(interval) <= 0) {
+        continue;
+      }
+
+      if (start(interval) > end) {
+        if (end > start) {
+          sorted[count++] = of(start, end);
+        }
+        start = start(interval);
+      }
+      end = Math.max(end, end(interval));
+    }
+
+    if (end > start) {
+      sorted[count++] = of(start, end);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the first {@code length} intervals of {@code intervals}, in any order, sorted and
+   * merged into a new array.
+   */
+  public static long[] merge(long[] intervals, int length) {
+    long[] result = Arrays.copyOf(intervals, length);
+    sort(result, length);
+    return Arrays.copyOf(result, mergeInPlace(result, length));
+  }
+
+  /**
+   * Returns the time covered by either of the merged arrays {@code a} and {@code b}.
+   */
+  public static long[] union(long[] a, long[] b) {
+    long[] both = new long[a.length + b.length];
+    int i = 0;
+    int j = 0;
+    int count = 0;
+    while (i < a.length || j < b.length) {
+      if (j == b.length || (i < a.length && a[i] <= b[j])) {
+        both[count++] = a[i++];
+      } else {
+        both[count++] = b[j++];
+      }
+    }
+    return Arrays.copyOf(both, mergeInPlace(both, count));
+  }
+
+  /**
+   * Returns the time covered by both of the merged arrays {@code a} and {@code b}.
+   */
+  public static long[] intersect(long[] a, long[] b) {
+    long[] result = new long[a.length + b.length];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      int start = Math.max(start(a[i]), start(b[j]));
+      int end = Math.min(end(a[i]), end(b[j]));
+      if (start < end) {
+        result[count++] = of(start, end);
+      }
+
+      // Whichever interval ends first cannot overlap anything else in the other array.
+      if (end(a[i]) < end(b[j])) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Returns the gaps of at least {@code minLength} minutes that the merged array {@code busy}
+   * leaves between {@code from} (inclusive) and {@code to} (exclusive).
+   */
+  public static long[] complement(long[] busy, int from, int to, long minLength) {
+    return complement(busy, busy.length, from, to, minLength);
+  }
+
+  /**
+   * Same as {@link #complement(long[], int, int, long)} over the first {@code length} intervals of
+   * {@code busy}.
+   */
+  public static long[] complement(long[] busy, int length, int from, int to, long minLength) {
+    long[] free = new long[length + 1];
+    int count = 0;
+    int freeStart = from;
+    for (int i = 0; i < length && freeStart < to; i++) {
+      int start = Math.min(start(busy[i]), to);
+      if (start > freeStart && start - freeStart >= minLength) {
+        free[count++] = of(freeStart, start);
+      }
+      freeStart = Math.max(freeStart, end(busy[i]));
+    }
+
+    if (to > freeStart && to - freeStart >= minLength) {
+      free[count++] = of(freeStart, to);
+    }
+    return Arrays.copyOf(free, count);
+  }
+
+  /**
+   * Returns the index of the first interval in the merged array {@code merged} that ends after
+   * {@code time}, or {@code merged.length} if there is none.
+   */
+  public static int firstEndingAfter(long[] merged, int time) {
+    int low = 0;
+    int high = merged.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (end(merged[mid]) <= time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts of durations in nanoseconds, bucketed the way HdrHistogram does it: values below 64 get
+ * a bucket each, and every power of two above that is split into 32 equal buckets. Any value is
+ * therefore known to within about 3%, and the whole range of a {@code long} fits in under 2,000
+ * counters.
+ *
+ * <p>Recording is one atomic increment, so any number of threads can record at once without
+ * locking. Percentiles read the counters one by one while recording goes on, so they describe the
+ * histogram at roughly the time of the call.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * Records one duration of {@code nanos} nanoseconds. Negative durations count as 0.
+   */
+  public void record(long nanos) {
+    counts.incrementAndGet(bucketOf(Math.max(0, nanos)));
+  }
+
+  /**
+   * Returns how many durations have been recorded.
+   */
+  public long count() {
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * Returns the duration that {@code percentile} percent of the recorded durations do not exceed,
+   * rounded up to the top of its bucket, or 0 if nothing has been recorded.
+   */
+  public long percentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100, was " + percentile);
+    }
+
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return highestInBucket(i);
+      }
+    }
+    return highestInBucket(BUCKETS - 1);
+  }
+
+  static int bucketOf(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  static long highestInBucket(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+}
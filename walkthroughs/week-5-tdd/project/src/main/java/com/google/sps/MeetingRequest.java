@@ -14,11 +14,10 @@
 
 package com.google.sps;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 
 public final class MeetingRequest {
 
@@ -27,19 +26,37 @@ public final class MeetingRequest {
   /////////////////////////////////////////////
   // Any new fields added to this class
   // must be reflected in the class of the
-  // same name in script.js
+  // same name in script.js and in
+  // CalendarJson.MeetingRequestAdapter
   /////////////////////////////////////////////
 
   // All the people that should be attending this new meeting. Use a set to avoid duplicates.
-  private final Collection<String> attendees = new HashSet<>();
+  private final Set<String> attendees = new HashSet<>();
 
   // Some optional attendees for this new meeting. Use a set to avoid duplicates.
-  private final Collection<String> optional_attendees = new HashSet<>();
+  private final Set<String> optional_attendees = new HashSet<>();
 
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // How many people the room must hold, or 0 if no room is needed.
+  private int room_capacity = 0;
+
+  // What the room must have, such as a projector.
+  private Set<String> room_equipment = Collections.emptySet();
+
+  /**
+   * @throws IllegalArgumentException if {@code attendees} is or holds {@code null}
+   */
   public MeetingRequest(Collection<String> attendees, long duration) {
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+    for (String attendee : attendees) {
+      if (attendee == null) {
+        throw new IllegalArgumentException("attendees cannot contain null");
+      }
+    }
     this.duration = duration;
     this.attendees.addAll(attendees);
   }
@@ -58,15 +75,65 @@ public final class MeetingRequest {
     return Collections.unmodifiableCollection(optional_attendees);
   }
 
+  /**
+   * Returns the sorted {@link AttendeeIds} of the required attendees who have ever had an event.
+   * Nobody else can be busy, so the rest are left out. Names are only looked up, never interned,
+   * so requests cannot grow the table of ids.
+   */
+  int[] getAttendeeIds() {
+    return AttendeeSet.find(attendees);
+  }
+
+  /**
+   * Returns the sorted ids of the optional attendees, with the same rules as
+   * {@link #getAttendeeIds}.
+   */
+  int[] getOptionalAttendeeIds() {
+    return AttendeeSet.find(optional_attendees);
+  }
+
   /**
    * Adds one optional attendee for the meeting.
+   *
+   * @throws IllegalArgumentException if {@code attendee} is {@code null}
    */
   public void addOptionalAttendee(String attendee) {
+    if (attendee == null) {
+      throw new IllegalArgumentException("attendee cannot be null");
+    }
     if (!attendees.contains(attendee)) {
       optional_attendees.add(attendee);
     }
   }
 
+  /**
+   * Asks for a room that holds at least {@code capacity} people and has all of {@code equipment}.
+   */
+  public void requireRoom(int capacity, Collection<String> equipment) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity cannot be negative");
+    }
+    if (equipment == null) {
+      throw new IllegalArgumentException("equipment cannot be null. Use empty array instead.");
+    }
+    this.room_capacity = capacity;
+    this.room_equipment = new HashSet<>(equipment);
+  }
+
+  /**
+   * Returns how many people the room must hold, or 0 if no room was asked for.
+   */
+  public int getRoomCapacity() {
+    return room_capacity;
+  }
+
+  /**
+   * Returns a read-only view of what the room must have.
+   */
+  public Set<String> getRoomEquipment() {
+    return Collections.unmodifiableSet(room_equipment);
+  }
+
   /**
    * Returns the duration of the meeting in minutes.
    */
@@ -0,0 +1,213 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map from names to values, stored as a hash trie with 32 branches per level.
+ * {@link #with} and {@link #without} return a new map that copies only the O(log n) nodes on the
+ * path to the changed name and shares everything else, so a map can be replaced and published to
+ * readers at a cost that does not grow with the number of names. Values may not be {@code null}.
+ */
+final class NameTrie<V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final NameTrie<?> EMPTY = new NameTrie<>(null, 0);
+
+  // null, a Leaf, a Collision, or an Object[] of 32 children.
+  private final Object root;
+  private final int size;
+
+  private NameTrie(Object root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <V> NameTrie<V> empty() {
+    return (NameTrie<V>) EMPTY;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the value for {@code name}, or {@code null} if there is none.
+   */
+  @SuppressWarnings("unchecked")
+  V get(String name) {
+    int hash = name.hashCode();
+    Object node = root;
+    for (int shift = 0; node instanceof Object[]; shift += BITS) {
+      node = ((Object[]) node)[(hash >>> shift) & MASK];
+    }
+    if (node instanceof Leaf) {
+      Leaf<V> leaf = (Leaf<V>) node;
+      return leaf.name.equals(name) ? leaf.value : null;
+    }
+    if (node instanceof Collision) {
+      for (Leaf<?> leaf : ((Collision<V>) node).leaves) {
+        if (leaf.name.equals(name)) {
+          return (V) leaf.value;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns a map that also holds {@code value} for {@code name}, in place of any earlier value.
+   */
+  NameTrie<V> with(String name, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Values may not be null");
+    }
+    int added = get(name) == null ? 1 : 0;
+    return new NameTrie<>(with(root, 0, new Leaf<>(name, name.hashCode(), value)), size + added);
+  }
+
+  /**
+   * Returns a map without {@code name}, or this map if it does not hold it.
+   */
+  NameTrie<V> without(String name) {
+    if (get(name) == null) {
+      return this;
+    }
+    return new NameTrie<>(without(root, 0, name, name.hashCode()), size - 1);
+  }
+
+  /**
+   * Calls {@code action} for every name and value, in no particular order.
+   */
+  void forEach(BiConsumer<String, V> action) {
+    forEach(root, action);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> Object with(Object node, int shift, Leaf<V> leaf) {
+    if (node == null) {
+      return leaf;
+    }
+    if (node instanceof Object[]) {
+      Object[] children = ((Object[]) node).clone();
+      int slot = (leaf.hash >>> shift) & MASK;
+      children[slot] = with(children[slot], shift + BITS, leaf);
+      return children;
+    }
+
+    int hash = node instanceof Leaf ? ((Leaf<V>) node).hash : ((Collision<V>) node).hash;
+    if (hash != leaf.hash) {
+      // Split on the hash bits at this level, going deeper while they agree.
+      Object[] children = new Object[1 << BITS];
+      children[(hash >>> shift) & MASK] = node;
+      return with(children, shift, leaf);
+    }
+    if (node instanceof Leaf) {
+      Leaf<V> old = (Leaf<V>) node;
+      return old.name.equals(leaf.name) ? leaf : new Collision<>(hash, new Leaf<?>[] {old, leaf});
+    }
+    Leaf<?>[] leaves = ((Collision<V>) node).leaves;
+    for (int i = 0; i < leaves.length; i++) {
+      if (leaves[i].name.equals(leaf.name)) {
+        Leaf<?>[] replaced = leaves.clone();
+        replaced[i] = leaf;
+        return new Collision<>(hash, replaced);
+      }
+    }
+    Leaf<?>[] grown = Arrays.copyOf(leaves, leaves.length + 1);
+    grown[leaves.length] = leaf;
+    return new Collision<>(hash, grown);
+  }
+
+  /** Only called for names the map holds. */
+  @SuppressWarnings("unchecked")
+  private static <V> Object without(Object node, int shift, String name, int hash) {
+    if (node instanceof Leaf) {
+      return null;
+    }
+    if (node instanceof Collision) {
+      Leaf<?>[] leaves = ((Collision<V>) node).leaves;
+      if (leaves.length == 2) {
+        return leaves[0].name.equals(name) ? leaves[1] : leaves[0];
+      }
+      Leaf<?>[] shrunk = new Leaf<?>[leaves.length - 1];
+      int kept = 0;
+      for (Leaf<?> leaf : leaves) {
+        if (!leaf.name.equals(name)) {
+          shrunk[kept++] = leaf;
+        }
+      }
+      return new Collision<>(hash, shrunk);
+    }
+
+    Object[] children = ((Object[]) node).clone();
+    int slot = (hash >>> shift) & MASK;
+    children[slot] = without(children[slot], shift + BITS, name, hash);
+    // A branch left holding a single leaf folds back into its parent.
+    Object only = null;
+    for (Object child : children) {
+      if (child != null) {
+        if (only != null || child instanceof Object[]) {
+          return children;
+        }
+        only = child;
+      }
+    }
+    return only;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> void forEach(Object node, BiConsumer<String, V> action) {
+    if (node instanceof Leaf) {
+      Leaf<V> leaf = (Leaf<V>) node;
+      action.accept(leaf.name, leaf.value);
+    } else if (node instanceof Collision) {
+      for (Leaf<?> leaf : ((Collision<V>) node).leaves) {
+        action.accept(leaf.name, (V) leaf.value);
+      }
+    } else if (node instanceof Object[]) {
+      for (Object child : (Object[]) node) {
+        forEach(child, action);
+      }
+    }
+  }
+
+  private static final class Leaf<V> {
+    final String name;
+    final int hash;
+    final V value;
+
+    Leaf(String name, int hash, V value) {
+      this.name = name;
+      this.hash = hash;
+      this.value = value;
+    }
+  }
+
+  /** Names whose hashes are equal in all 32 bits. */
+  private static final class Collision<V> {
+    final int hash;
+    final Leaf<?>[] leaves;
+
+    Collision(int hash, Leaf<?>[] leaves) {
+      this.hash = hash;
+      this.leaves = leaves;
+    }
+  }
+}
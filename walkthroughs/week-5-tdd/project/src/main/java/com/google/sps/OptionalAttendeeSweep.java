@@ -0,0 +1,240 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sweeps the busy time of optional attendees across the ranges where every mandatory attendee is
+ * free. The sweep keeps a window over the timeline and counts, per optional attendee, how many of
+ * their busy ranges overlap the window. Moving either side of the window only ever goes forward,
+ * so each pass is linear in the number of busy ranges no matter how many optional attendees there
+ * are.
+ */
+final class OptionalAttendeeSweep {
+  private final long[] gaps;
+  private final int optionalCount;
+
+  // Busy ranges of optional attendees, clipped to the gaps. Stored as parallel arrays so that the
+  // sweep does not have to chase objects.
+  private final int[] pieceStart;
+  private final int[] pieceEnd;
+  private final int[] pieceOwner;
+
+  // Piece indices ordered by start and by end.
+  private final int[] byStart;
+  private final int[] byEnd;
+
+  // Every point a window may start at, packed as (time << 32 | gap index) and sorted.
+  private final long[] windowStarts;
+
+  // Sweep state.
+  private int[] overlapping;
+  private int busyCount;
+  private int entered;
+  private int left;
+
+  /**
+   * Prepares a sweep over the merged packed intervals {@code gaps}. Each entry of
+   * {@code optionalBusy} holds the busy intervals of one optional attendee, in any order.
+   */
+  OptionalAttendeeSweep(long[] gaps, List<long[]> optionalBusy) {
+    this.gaps = gaps;
+    this.optionalCount = optionalBusy.size();
+
+    IntList starts = new IntList();
+    IntList ends = new IntList();
+    IntList owners = new IntList();
+    for (int owner = 0; owner < optionalBusy.size(); owner++) {
+      for (long interval : optionalBusy.get(owner)) {
+        clip(interval, owner, starts, ends, owners);
+      }
+    }
+
+    pieceStart = starts.toArray();
+    pieceEnd = ends.toArray();
+    pieceOwner = owners.toArray();
+    byStart = sortedIndices(pieceStart);
+    byEnd = sortedIndices(pieceEnd);
+
+    long[] candidates = new long[gaps.length + pieceEnd.length];
+    int count = 0;
+    for (int i = 0; i < gaps.length; i++) {
+      candidates[count++] = pack(Intervals.start(gaps[i]), i);
+    }
+    for (int piece = 0; piece < pieceEnd.length; piece++) {
+      int gap = Intervals.firstEndingAfter(gaps, pieceStart[piece]);
+      if (pieceEnd[piece] < Intervals.end(gaps[gap])) {
+        candidates[count++] = pack(pieceEnd[piece], gap);
+      }
+    }
+    windowStarts = Arrays.copyOf(candidates, count);
+    Arrays.sort(windowStarts);
+  }
+
+  /**
+   * Returns the smallest number of optional attendees that are busy at some point of a window of
+   * {@code duration} minutes, or -1 if no gap is long enough for the meeting.
+   */
+  int fewestBusy(long duration) {
+    reset();
+    int fewest = -1;
+    for (long candidate : windowStarts) {
+      int start = high(candidate);
+      int gapEnd = Intervals.end(gaps[low(candidate)]);
+      if (gapEnd - start < duration) {
+        continue;
+      }
+
+      long end = start + duration;
+      enterWhile(end, Integer.MAX_VALUE);
+      leaveUpTo(start);
+      if (fewest < 0 || busyCount < fewest) {
+        fewest = busyCount;
+      }
+    }
+    return fewest;
+  }
+
+  /**
+   * Returns every maximal interval of at least {@code duration} minutes during which no more than
+   * {@code limit} optional attendees are busy. Intervals are ordered by start. They never contain
+   * one another but, unless {@code limit} is zero, may overlap because different people can be
+   * missing from each.
+   */
+  long[] windows(int limit, long duration) {
+    reset();
+    long[] result = new long[windowStarts.length];
+    int count = 0;
+    int previousEnd = -1;
+    for (long candidate : windowStarts) {
+      int start = high(candidate);
+      int gapEnd = Intervals.end(gaps[low(candidate)]);
+
+      // Catch up with everything that starts before the window does and drop everything that
+      // already ended.
+      enterWhile(start, Integer.MAX_VALUE);
+      leaveUpTo(start);
+      if (busyCount > limit) {
+        continue;
+      }
+
+      // Grow the window until it would include one busy person too many or leave the gap.
+      enterWhile(gapEnd, limit);
+      int end = entered < byStart.length ? Math.min(pieceStart[byStart[entered]], gapEnd) : gapEnd;
+
+      if (end - start >= duration && end > start && end != previousEnd) {
+        result[count++] = Intervals.of(start, end);
+        previousEnd = end;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  private void reset() {
+    overlapping = new int[optionalCount];
+    busyCount = 0;
+    entered = 0;
+    left = 0;
+  }
+
+  /**
+   * Adds pieces in start order while they start before {@code end}. Stops early at the first piece
+   * that would make more than {@code limit} people busy.
+   */
+  private void enterWhile(long end, int limit) {
+    while (entered < byStart.length && pieceStart[byStart[entered]] < end) {
+      int owner = pieceOwner[byStart[entered]];
+      if (overlapping[owner] == 0) {
+        if (busyCount >= limit) {
+          return;
+        }
+        busyCount++;
+      }
+      overlapping[owner]++;
+      entered++;
+    }
+  }
+
+  /** Removes pieces in end order while they end at or before {@code start}. */
+  private void leaveUpTo(int start) {
+    while (left < byEnd.length && pieceEnd[byEnd[left]] <= start) {
+      int owner = pieceOwner[byEnd[left]];
+      overlapping[owner]--;
+      if (overlapping[owner] == 0) {
+        busyCount--;
+      }
+      left++;
+    }
+  }
+
+  /** Splits {@code interval} along the gaps it overlaps. */
+  private void clip(long interval, int owner, IntList starts, IntList ends, IntList owners) {
+    for (int i = Intervals.firstEndingAfter(gaps, Intervals.start(interval));
+         i < gaps.length && Intervals.start(gaps[i]) < Intervals.end(interval); i++) {
+      int start = Math.max(Intervals.start(gaps[i]), Intervals.start(interval));
+      int end = Math.min(Intervals.end(gaps[i]), Intervals.end(interval));
+      if (start < end) {
+        starts.add(start);
+        ends.add(end);
+        owners.add(owner);
+      }
+    }
+  }
+
+  private static int[] sortedIndices(int[] keys) {
+    long[] packed = new long[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      packed[i] = pack(keys[i], i);
+    }
+    Arrays.sort(packed);
+
+    int[] indices = new int[keys.length];
+    for (int i = 0; i < packed.length; i++) {
+      indices[i] = low(packed[i]);
+    }
+    return indices;
+  }
+
+  private static long pack(int high, int low) {
+    return ((long) high << 32) | (low & 0xFFFFFFFFL);
+  }
+
+  private static int high(long packed) {
+    return (int) (packed >>> 32);
+  }
+
+  private static int low(long packed) {
+    return (int) packed;
+  }
+
+  /** A growable array of ints, so that collecting pieces does not box every value. */
+  private static final class IntList {
+    private int[] values = new int[16];
+    private int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+}
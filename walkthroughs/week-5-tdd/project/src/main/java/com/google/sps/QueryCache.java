@@ -0,0 +1,169 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Remembers the answers of {@link FindMeetingQuery#queryWithOptionalAttendees(AttendeeIndex,
+ * MeetingRequest)} for the most recently asked questions, so a team asking the same thing over and
+ * over only pays for it once. The answers of {@link FindMeetingQuery#queryTopK(AttendeeIndex,
+ * MeetingRequest, int, TimeRange)} are kept the same way.
+ *
+ * <p>An answer is kept together with the {@link AttendeeIndex#versions} of everyone the request
+ * names. It is only handed out again while those versions are unchanged, so a change to one
+ * person's calendar retires exactly the answers that involve them and nothing else. A retired
+ * answer is replaced the next time the same question is asked, or drops out as the least recently
+ * used.
+ */
+public final class QueryCache {
+  private final AttendeeIndex index;
+  private final QueryMetrics metrics;
+  private final FindMeetingQuery query = new FindMeetingQuery();
+  private final Map<Key, Answer> answers;
+
+  /**
+   * Creates a cache of at most {@code capacity} answers over {@code index}.
+   */
+  public QueryCache(AttendeeIndex index, int capacity) {
+    this(index, capacity, null);
+  }
+
+  /**
+   * Same as {@link #QueryCache(AttendeeIndex, int)}, recording into {@code metrics} how long each
+   * phase of a search takes. Nothing is recorded for answers that were cached.
+   */
+  public QueryCache(AttendeeIndex index, int capacity, QueryMetrics metrics) {
+    this.index = index;
+    this.metrics = metrics;
+    this.answers = new LinkedHashMap<Key, Answer>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Answer> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the same ranges as {@link FindMeetingQuery#queryWithOptionalAttendees(AttendeeIndex,
+   * MeetingRequest)}. The collection is shared between callers and cannot be changed.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(MeetingRequest request) {
+    return answer(new Key(request, 0, null),
+        timer -> query.queryWithOptionalAttendees(index, request, timer));
+  }
+
+  /**
+   * Returns the same slots as {@link FindMeetingQuery#queryTopK(AttendeeIndex, MeetingRequest,
+   * int, TimeRange)}. The list is shared between callers and cannot be changed.
+   *
+   * @throws IllegalArgumentException if {@code k} is not positive
+   */
+  public List<TimeRange> queryTopK(MeetingRequest request, int k, TimeRange preferredHours) {
+    return answer(new Key(request, k, preferredHours),
+        timer -> query.queryTopK(index, request, k, preferredHours, timer));
+  }
+
+  /**
+   * Returns the cached answer to {@code key} if it is still current, or else the ranges
+   * {@code search} finds, which are then kept.
+   */
+  private List<TimeRange> answer(
+      Key key, Function<QueryMetrics.Timer, Collection<TimeRange>> search) {
+    // Read the versions before the calendars. If a calendar changes in between, the answer may be
+    // newer than its versions say, which only means it is computed again next time.
+    long[] versions = index.versions(key.people());
+
+    synchronized (answers) {
+      Answer answer = answers.get(key);
+      if (answer != null && Arrays.equals(answer.versions, versions)) {
+        return answer.ranges;
+      }
+    }
+
+    QueryMetrics.Timer timer = metrics == null ? QueryMetrics.Timer.NONE : metrics.start();
+    List<TimeRange> ranges =
+        Collections.unmodifiableList(new ArrayList<>(search.apply(timer)));
+    timer.finish();
+    synchronized (answers) {
+      answers.put(key, new Answer(versions, ranges));
+    }
+    return ranges;
+  }
+
+  /**
+   * The question a request asks, independent of the order people were listed in. {@code k} is 0
+   * and {@code preferredHours} is {@code null} for {@link #queryWithOptionalAttendees}.
+   */
+  private static final class Key {
+    private final Set<String> attendees;
+    private final Set<String> optionalAttendees;
+    private final long duration;
+    private final int k;
+    private final TimeRange preferredHours;
+
+    Key(MeetingRequest request, int k, TimeRange preferredHours) {
+      this.attendees = new HashSet<>(request.getAttendees());
+      this.optionalAttendees = new HashSet<>(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.k = k;
+      this.preferredHours = preferredHours;
+    }
+
+    /** Returns the names of the mandatory and then the optional attendees. */
+    List<String> people() {
+      List<String> people = new ArrayList<>(attendees.size() + optionalAttendees.size());
+      people.addAll(attendees);
+      people.addAll(optionalAttendees);
+      return people;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return duration == key.duration && k == key.k
+          && Objects.equals(preferredHours, key.preferredHours)
+          && attendees.equals(key.attendees) && optionalAttendees.equals(key.optionalAttendees);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(attendees, optionalAttendees, duration, k, preferredHours);
+    }
+  }
+
+  private static final class Answer {
+    final long[] versions;
+    final List<TimeRange> ranges;
+
+    Answer(long[] versions, List<TimeRange> ranges) {
+      this.versions = versions;
+      this.ranges = ranges;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Where the time of meeting queries goes, one {@link LatencyHistogram} per phase. Each query gets
+ * a {@link Timer} that is told whenever a phase ends; phases a query never reaches, such as the
+ * search itself when the answer was cached, are not recorded for it.
+ */
+public final class QueryMetrics {
+  /** The parts a query is timed in, in the order they run. */
+  public enum Phase {
+    /** Reading the meeting request from JSON. */
+    PARSE,
+    /** Picking out the busy time of the people in the request. */
+    FILTER,
+    /** Sorting and merging the busy time into one timeline. */
+    SORT_MERGE,
+    /** Finding the free gaps, including fitting in optional attendees. */
+    GAPS,
+    /** Writing the answer out as JSON. */
+    SERIALIZE
+  }
+
+  private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+
+  public QueryMetrics() {
+    for (Phase phase : Phase.values()) {
+      histograms.put(phase, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * Returns the histogram of {@code phase}.
+   */
+  public LatencyHistogram get(Phase phase) {
+    return histograms.get(phase);
+  }
+
+  /**
+   * Starts timing one query from now.
+   */
+  public Timer start() {
+    return new Timer(this);
+  }
+
+  /**
+   * Times the phases of one query. A timer belongs to a single thread.
+   */
+  public static final class Timer {
+    /** A timer that records nothing, for callers that are not being measured. */
+    static final Timer NONE = new Timer(null);
+
+    private final QueryMetrics metrics;
+    private final long[] elapsed = new long[Phase.values().length];
+    private final boolean[] reached = new boolean[Phase.values().length];
+    private long last;
+
+    private Timer(QueryMetrics metrics) {
+      this.metrics = metrics;
+      this.last = metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the previous call, or since the timer started, to {@code phase}. A phase
+     * may be ended several times; the times add up.
+     */
+    public void lap(Phase phase) {
+      if (metrics == null) {
+        return;
+      }
+      long now = System.nanoTime();
+      elapsed[phase.ordinal()] += now - last;
+      reached[phase.ordinal()] = true;
+      last = now;
+    }
+
+    /**
+     * Drops the time since the previous call, or since the timer started, so that the next
+     * {@link #lap} only counts what comes after. For time spent in work that is timed elsewhere.
+     */
+    public void skip() {
+      if (metrics == null) {
+        return;
+      }
+      last = System.nanoTime();
+    }
+
+    /**
+     * Records the time of every phase reached into the histograms. Call once, at the end.
+     */
+    public void finish() {
+      if (metrics == null) {
+        return;
+      }
+      for (Phase phase : Phase.values()) {
+        if (reached[phase.ordinal()]) {
+          metrics.get(phase).record(elapsed[phase.ordinal()]);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,117 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * When a {@code RecurringEvent} repeats: on some days of the week, optionally until a last date,
+ * and skipping any dates listed as exceptions. Recurrences are immutable; {@link #until} and
+ * {@link #except} return changed copies.
+ */
+public final class Recurrence {
+  private final Set<DayOfWeek> days;
+  private final LocalDate until;
+  private final Set<LocalDate> exceptions;
+
+  private Recurrence(Set<DayOfWeek> days, LocalDate until, Set<LocalDate> exceptions) {
+    this.days = days;
+    this.until = until;
+    this.exceptions = exceptions;
+  }
+
+  /**
+   * Returns a recurrence that repeats every day, forever.
+   */
+  public static Recurrence daily() {
+    return new Recurrence(EnumSet.allOf(DayOfWeek.class), null, Collections.emptySet());
+  }
+
+  /**
+   * Returns a recurrence that repeats once a week on {@code day}, forever.
+   */
+  public static Recurrence weekly(DayOfWeek day) {
+    return onDays(Arrays.asList(day));
+  }
+
+  /**
+   * Returns a recurrence that repeats every week on each of {@code days}, forever.
+   */
+  public static Recurrence onDays(Collection<DayOfWeek> days) {
+    if (days == null || days.isEmpty()) {
+      throw new IllegalArgumentException("days cannot be empty");
+    }
+    return new Recurrence(EnumSet.copyOf(days), null, Collections.emptySet());
+  }
+
+  /**
+   * Returns a copy of this recurrence that stops after {@code last}, which is included.
+   */
+  public Recurrence until(LocalDate last) {
+    if (last == null) {
+      throw new IllegalArgumentException("last cannot be null");
+    }
+    return new Recurrence(days, last, exceptions);
+  }
+
+  /**
+   * Returns a copy of this recurrence that skips the occurrence on {@code date}.
+   */
+  public Recurrence except(LocalDate date) {
+    if (date == null) {
+      throw new IllegalArgumentException("date cannot be null");
+    }
+    Set<LocalDate> skipped = new HashSet<>(exceptions);
+    skipped.add(date);
+    return new Recurrence(days, until, skipped);
+  }
+
+  /**
+   * Returns the last date with an occurrence, or {@code null} if the recurrence never ends.
+   */
+  public LocalDate getUntil() {
+    return until;
+  }
+
+  /**
+   * Returns whether there is an occurrence on {@code date}, ignoring when the series starts.
+   */
+  public boolean occursOn(LocalDate date) {
+    return days.contains(date.getDayOfWeek()) && (until == null || !date.isAfter(until))
+        && !exceptions.contains(date);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Recurrence)) {
+      return false;
+    }
+    Recurrence that = (Recurrence) other;
+    return days.equals(that.days) && (until == null ? that.until == null : until.equals(that.until))
+        && exceptions.equals(that.exceptions);
+  }
+
+  @Override
+  public int hashCode() {
+    return days.hashCode() ^ exceptions.hashCode();
+  }
+}
@@ -0,0 +1,182 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+/**
+ * A series of events that repeat at the same local time, such as a daily standup. A series is
+ * stored once no matter how many times it occurs; occurrences are only worked out for the window
+ * being looked at. Like {@code DatedEvent}, recurring events are read-only.
+ */
+public final class RecurringEvent {
+  private static final int MINUTES_PER_DAY = 24 * 60;
+
+  private final String title;
+  private final ZoneId zone;
+  private final LocalDate firstDate;
+  private final LocalTime start;
+  private final int duration;
+  private final Recurrence recurrence;
+  private final Set<String> attendees = new HashSet<>();
+
+  /**
+   * Creates a new series.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param zone The time zone {@code firstDate} and {@code start} are given in. Must be non-null.
+   * @param firstDate The date of the first possible occurrence. Must be non-null.
+   * @param start The local time each occurrence starts. Must be non-null.
+   * @param duration How long each occurrence lasts, in minutes. Must be positive.
+   * @param recurrence The dates on which the event occurs. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   */
+  public RecurringEvent(String title, ZoneId zone, LocalDate firstDate, LocalTime start,
+      int duration, Recurrence recurrence, Collection<String> attendees) {
+    if (title == null || zone == null || firstDate == null || start == null
+        || recurrence == null) {
+      throw new IllegalArgumentException("recurring events cannot have null fields");
+    }
+
+    if (duration <= 0) {
+      throw new IllegalArgumentException("duration must be positive");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    this.title = title;
+    this.zone = zone;
+    this.firstDate = firstDate;
+    this.start = start;
+    this.duration = duration;
+    this.recurrence = recurrence;
+    this.attendees.addAll(attendees);
+  }
+
+  /**
+   * Returns the human-readable name for this event.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns the rule for when this event occurs.
+   */
+  public Recurrence getRecurrence() {
+    return recurrence;
+  }
+
+  /**
+   * Returns a read-only set of required attendees for this event.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(attendees);
+  }
+
+  /**
+   * Returns the occurrences that overlap {@code window} as packed epoch-minute intervals, in start
+   * order. Occurrences are worked out one at a time as the iterator advances, starting from the
+   * window rather than from the first date of the series. Daylight saving changes are taken into
+   * account, so a 9:00 start stays at 9:00 local time all year.
+   */
+  PrimitiveIterator.OfLong occurrences(EpochTimeRange window) {
+    // An occurrence that started a few days before the window can still run into it.
+    LocalDate from = window.startInstant().atZone(zone).toLocalDate()
+        .minusDays(duration / MINUTES_PER_DAY + 1);
+    LocalDate to = window.endInstant().atZone(zone).toLocalDate();
+    if (recurrence.getUntil() != null && recurrence.getUntil().isBefore(to)) {
+      to = recurrence.getUntil();
+    }
+    return new Occurrences(from.isBefore(firstDate) ? firstDate : from, to, window);
+  }
+
+  private final class Occurrences implements PrimitiveIterator.OfLong {
+    private final LocalDate last;
+    private final EpochTimeRange window;
+    private LocalDate date;
+    private long next;
+    private boolean hasNext;
+
+    Occurrences(LocalDate first, LocalDate last, EpochTimeRange window) {
+      this.last = last;
+      this.window = window;
+      this.date = first;
+      advance();
+    }
+
+    private void advance() {
+      hasNext = false;
+      for (; !date.isAfter(last); date = date.plusDays(1)) {
+        if (!recurrence.occursOn(date)) {
+          continue;
+        }
+
+        int from = EpochTimeRange.toEpochMinute(ZonedDateTime.of(date, start, zone).toInstant());
+        if (from >= window.end()) {
+          return;
+        }
+        if (from + duration > window.start()) {
+          next = Intervals.of(from, from + duration);
+          hasNext = true;
+          date = date.plusDays(1);
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return hasNext;
+    }
+
+    @Override
+    public long nextLong() {
+      if (!hasNext) {
+        throw new NoSuchElementException();
+      }
+      long result = next;
+      advance();
+      return result;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return title.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RecurringEvent && equals(this, (RecurringEvent) other);
+  }
+
+  private static boolean equals(RecurringEvent a, RecurringEvent b) {
+    return a.title.equals(b.title) && a.zone.equals(b.zone) && a.firstDate.equals(b.firstDate)
+        && a.start.equals(b.start) && a.duration == b.duration
+        && a.recurrence.equals(b.recurrence) && a.attendees.equals(b.attendees);
+  }
+}
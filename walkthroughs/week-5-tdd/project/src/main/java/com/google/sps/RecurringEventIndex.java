@@ -0,0 +1,140 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+/**
+ * The recurring events of each attendee. Only the series are stored; when someone's busy time is
+ * asked for, the occurrences of all of their series inside the window are produced lazily and
+ * merged in start order, so nothing outside the window is ever expanded.
+ */
+public final class RecurringEventIndex {
+  private final Map<String, List<RecurringEvent>> series = new HashMap<>();
+
+  /**
+   * Adds {@code event} to the series of each of its attendees.
+   */
+  public synchronized void add(RecurringEvent event) {
+    for (String attendee : event.getAttendees()) {
+      series.computeIfAbsent(attendee, name -> new ArrayList<>()).add(event);
+    }
+  }
+
+  /**
+   * Removes a series equal to {@code event}. Returns {@code false} if there is no such series.
+   */
+  public synchronized boolean remove(RecurringEvent event) {
+    boolean removed = false;
+    for (String attendee : event.getAttendees()) {
+      List<RecurringEvent> events = series.get(attendee);
+      if (events != null && events.remove(event)) {
+        removed = true;
+        if (events.isEmpty()) {
+          series.remove(attendee);
+        }
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Returns when {@code attendee}'s series keep them busy inside {@code window}, as a merged array
+   * of packed epoch-minute intervals. Occurrences that stick out of the window are not clipped.
+   */
+  long[] busyIntervals(String attendee, EpochTimeRange window) {
+    List<RecurringEvent> events;
+    synchronized (this) {
+      events = new ArrayList<>(series.getOrDefault(attendee, Collections.emptyList()));
+    }
+    if (events.isEmpty()) {
+      return Intervals.EMPTY;
+    }
+
+    List<PrimitiveIterator.OfLong> occurrences = new ArrayList<>(events.size());
+    for (RecurringEvent event : events) {
+      occurrences.add(event.occurrences(window));
+    }
+
+    // Occurrences come out of the merge in start order, so overlapping ones are joined as they
+    // arrive, the same way Intervals.mergeInPlace does.
+    long[] merged = new long[16];
+    int count = 0;
+    for (PrimitiveIterator.OfLong it = merge(occurrences); it.hasNext(); ) {
+      long next = it.nextLong();
+      if (count > 0 && Intervals.start(next) <= Intervals.end(merged[count - 1])) {
+        int end = Math.max(Intervals.end(merged[count - 1]), Intervals.end(next));
+        merged[count - 1] = Intervals.of(Intervals.start(merged[count - 1]), end);
+        continue;
+      }
+      if (count == merged.length) {
+        merged = Arrays.copyOf(merged, count * 2);
+      }
+      merged[count++] = next;
+    }
+    return Arrays.copyOf(merged, count);
+  }
+
+  /**
+   * Returns an iterator over the packed intervals of all of {@code sources} in start order. Each
+   * source must already be in start order. Only the head of each source is held at a time.
+   */
+  static PrimitiveIterator.OfLong merge(List<PrimitiveIterator.OfLong> sources) {
+    if (sources.size() == 1) {
+      return sources.get(0);
+    }
+    return new MergeIterator(sources);
+  }
+
+  private static final class MergeIterator implements PrimitiveIterator.OfLong {
+    // Each entry is {interval, index of its source}. Packed intervals sort by start first.
+    private final PriorityQueue<long[]> heads =
+        new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+    private final List<PrimitiveIterator.OfLong> sources;
+
+    MergeIterator(List<PrimitiveIterator.OfLong> sources) {
+      this.sources = sources;
+      for (int i = 0; i < sources.size(); i++) {
+        if (sources.get(i).hasNext()) {
+          heads.add(new long[] {sources.get(i).nextLong(), i});
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !heads.isEmpty();
+    }
+
+    @Override
+    public long nextLong() {
+      long[] head = heads.remove();
+      long result = head[0];
+      PrimitiveIterator.OfLong source = sources.get((int) head[1]);
+      if (source.hasNext()) {
+        head[0] = source.nextLong();
+        heads.add(head);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,174 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The rooms of a site and when each of them is booked. Rooms are kept sorted by capacity, so the
+ * rooms big enough for a meeting are found with one binary search. The bookings of each room are a
+ * short sorted array that every change replaces, and the free time of each room is merged once per
+ * array and reused until its bookings change. Reads never lock.
+ */
+public final class RoomIndex {
+  private static final Comparator<Room> BY_CAPACITY =
+      Comparator.comparingInt(Room::getCapacity).thenComparing(Room::getName);
+
+  private final List<Room> rooms;
+  private final Map<String, Bookings> bookings = new ConcurrentHashMap<>();
+
+  /**
+   * Creates an index of {@code rooms}, none of which are booked yet.
+   */
+  public RoomIndex(Collection<Room> rooms) {
+    this.rooms = new ArrayList<>(rooms);
+    Collections.sort(this.rooms, BY_CAPACITY);
+    for (Room room : rooms) {
+      if (bookings.put(room.getName(), Bookings.NONE) != null) {
+        throw new IllegalArgumentException("Two rooms are named " + room.getName());
+      }
+    }
+  }
+
+  /**
+   * Marks {@code room} as booked during {@code when}.
+   */
+  public synchronized void book(String room, TimeRange when) {
+    bookings.put(room, bookingsOf(room).with(Intervals.of(when)));
+  }
+
+  /**
+   * Undoes a previous {@link #book}. Returns {@code false} if there was no such booking.
+   */
+  public synchronized boolean cancel(String room, TimeRange when) {
+    Bookings before = bookingsOf(room);
+    Bookings after = before.without(Intervals.of(when));
+    bookings.put(room, after);
+    return after != before;
+  }
+
+  /**
+   * Returns when {@code room} is booked, sorted by start, with touching and overlapping bookings
+   * merged.
+   */
+  public List<TimeRange> getBookings(String room) {
+    return Collections.unmodifiableList(Intervals.toTimeRanges(bookingsOf(room).merged()));
+  }
+
+  private Bookings bookingsOf(String room) {
+    Bookings result = bookings.get(room);
+    if (result == null) {
+      throw new IllegalArgumentException("Unknown room " + room);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the rooms with room for at least {@code capacity} people and all of
+   * {@code equipment}, smallest first.
+   */
+  List<Room> suitable(int capacity, Collection<String> equipment) {
+    int low = 0;
+    int high = rooms.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (rooms.get(mid).getCapacity() < capacity) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    List<Room> result = new ArrayList<>();
+    for (Room room : rooms.subList(low, rooms.size())) {
+      if (room.getEquipment().containsAll(equipment)) {
+        result.add(room);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the merged free time of {@code room} over the day. The array must not be changed.
+   */
+  long[] free(Room room) {
+    return bookingsOf(room.getName()).free();
+  }
+
+  /** The bookings of one room, which never change; a change makes new bookings. */
+  private static final class Bookings {
+    static final Bookings NONE = new Bookings(Intervals.EMPTY);
+
+    // Every booking, sorted. Overlaps and duplicates are allowed.
+    private final long[] intervals;
+    // Worked out when first asked for. Two readers may both do it, which does no harm.
+    private volatile long[] merged;
+    private volatile long[] free;
+
+    Bookings(long[] sorted) {
+      this.intervals = sorted;
+    }
+
+    Bookings with(long interval) {
+      int index = Arrays.binarySearch(intervals, interval);
+      if (index < 0) {
+        index = -index - 1;
+      }
+      long[] result = new long[intervals.length + 1];
+      System.arraycopy(intervals, 0, result, 0, index);
+      result[index] = interval;
+      System.arraycopy(intervals, index, result, index + 1, intervals.length - index);
+      return new Bookings(result);
+    }
+
+    /** Returns bookings without one copy of {@code interval}, or these if there is none. */
+    Bookings without(long interval) {
+      int index = Arrays.binarySearch(intervals, interval);
+      if (index < 0) {
+        return this;
+      }
+      long[] result = new long[intervals.length - 1];
+      System.arraycopy(intervals, 0, result, 0, index);
+      System.arraycopy(intervals, index + 1, result, index, result.length - index);
+      return new Bookings(result);
+    }
+
+    long[] merged() {
+      long[] result = merged;
+      if (result == null) {
+        result = Intervals.merge(intervals, intervals.length);
+        merged = result;
+      }
+      return result;
+    }
+
+    long[] free() {
+      long[] result = free;
+      if (result == null) {
+        result = Intervals.complement(
+            merged(), TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end(), 1);
+        free = result;
+      }
+      return result;
+    }
+  }
+}
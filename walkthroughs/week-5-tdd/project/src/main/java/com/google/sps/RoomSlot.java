@@ -0,0 +1,59 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A range of time in which a meeting can be held in a particular room. Room slots are considered
+ * read-only.
+ */
+public final class RoomSlot {
+  private final TimeRange when;
+  private final String room;
+
+  public RoomSlot(TimeRange when, String room) {
+    this.when = when;
+    this.room = room;
+  }
+
+  /**
+   * Returns when the room and every mandatory attendee are free.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns the name of the room.
+   */
+  public String getRoom() {
+    return room;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s in %s", when, room);
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() * 31 + room.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RoomSlot && ((RoomSlot) other).when.equals(when)
+        && ((RoomSlot) other).room.equals(room);
+  }
+}
@@ -0,0 +1,188 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Picks the best few meeting slots out of the gaps where every mandatory attendee is free. Slots
+ * are ranked by, in order:
+ *
+ * <ol>
+ *   <li>how many optional attendees are busy during the slot, fewest first;
+ *   <li>how many minutes of the slot fall outside the preferred hours, fewest first;
+ *   <li>the start of the slot, earliest first.
+ * </ol>
+ *
+ * <p>Every slot is exactly as long as the meeting. Slots are only tried where something changes:
+ * at the start and end of each gap, right after or right before an optional attendee's event, and
+ * at the start and end of the preferred hours. The very best slot at any minute of the day is
+ * always among those, and the rest are spread out instead of being one-minute shifts of each
+ * other.
+ *
+ * <p>Candidates are visited in start order while a bounded heap keeps the best {@code k} so far.
+ * The first two criteria can only be bounded from below, and the bound grows with the start once
+ * the preferred hours have begun, so the search stops as soon as the worst slot kept is at least
+ * as good as anything that could still come.
+ */
+final class SlotRanker {
+  private static final Comparator<Slot> BEST_FIRST =
+      Comparator.<Slot>comparingInt(slot -> slot.busyCount)
+          .thenComparingInt(slot -> slot.outside)
+          .thenComparingInt(slot -> slot.start);
+
+  private final long[] gaps;
+  private final List<long[]> optionalBusy;
+  private final int duration;
+  private final int preferredStart;
+  private final int preferredEnd;
+  private final boolean skipWhenAllOptionalBusy;
+
+  /**
+   * Prepares a ranking over the merged packed intervals {@code gaps}. Each entry of
+   * {@code optionalBusy} holds the merged busy intervals of one optional attendee. If
+   * {@code skipWhenAllOptionalBusy} is set, slots that none of the optional attendees can make are
+   * left out.
+   */
+  SlotRanker(long[] gaps, List<long[]> optionalBusy, int duration, TimeRange preferredHours,
+      boolean skipWhenAllOptionalBusy) {
+    this.gaps = gaps;
+    this.optionalBusy = optionalBusy;
+    this.duration = duration;
+    this.preferredStart = preferredHours.start();
+    this.preferredEnd = preferredHours.end();
+    this.skipWhenAllOptionalBusy = skipWhenAllOptionalBusy && !optionalBusy.isEmpty();
+  }
+
+  /**
+   * Returns up to {@code k} slots, best first.
+   */
+  List<TimeRange> top(int k) {
+    // The worst slot kept is at the head, so it is the one pushed out by a better one.
+    PriorityQueue<Slot> best = new PriorityQueue<>(k, BEST_FIRST.reversed());
+
+    search:
+    for (long gap : gaps) {
+      for (int start : candidateStarts(gap)) {
+        if (best.size() == k && BEST_FIRST.compare(best.peek(), lowerBound(start)) <= 0) {
+          break search;
+        }
+
+        int busyCount = busyCount(start);
+        if (skipWhenAllOptionalBusy && busyCount == optionalBusy.size()) {
+          continue;
+        }
+
+        Slot slot = new Slot(start, busyCount, outside(start));
+        if (best.size() < k) {
+          best.add(slot);
+        } else if (BEST_FIRST.compare(slot, best.peek()) < 0) {
+          best.poll();
+          best.add(slot);
+        }
+      }
+    }
+
+    List<Slot> slots = new ArrayList<>(best);
+    Collections.sort(slots, BEST_FIRST);
+    List<TimeRange> result = new ArrayList<>(slots.size());
+    for (Slot slot : slots) {
+      result.add(TimeRange.fromStartDuration(slot.start, duration));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the starts worth trying inside {@code gap}, sorted and without repeats.
+   */
+  private int[] candidateStarts(long gap) {
+    int first = Intervals.start(gap);
+    int last = Intervals.end(gap) - duration;
+    int[] starts = new int[16];
+    int count = 0;
+
+    starts[count++] = first;
+    starts[count++] = last;
+    starts[count++] = preferredStart;
+    starts[count++] = preferredEnd - duration;
+    for (long[] busy : optionalBusy) {
+      for (int i = Intervals.firstEndingAfter(busy, first);
+           i < busy.length && Intervals.start(busy[i]) < Intervals.end(gap); i++) {
+        if (count + 2 > starts.length) {
+          starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        starts[count++] = Intervals.end(busy[i]);
+        starts[count++] = Intervals.start(busy[i]) - duration;
+      }
+    }
+
+    Arrays.sort(starts, 0, count);
+    int kept = 0;
+    for (int i = 0; i < count; i++) {
+      int start = starts[i];
+      if (start >= first && start <= last && (kept == 0 || starts[kept - 1] != start)) {
+        starts[kept++] = start;
+      }
+    }
+    return Arrays.copyOf(starts, kept);
+  }
+
+  /** Counts the optional attendees with an event overlapping the slot at {@code start}. */
+  private int busyCount(int start) {
+    int end = start + duration;
+    int count = 0;
+    for (long[] busy : optionalBusy) {
+      int i = Intervals.firstEndingAfter(busy, start);
+      if (i < busy.length && Intervals.start(busy[i]) < end) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Returns how many minutes of the slot at {@code start} fall outside the preferred hours. */
+  private int outside(int start) {
+    int end = start + duration;
+    int before = Math.max(0, Math.min(end, preferredStart) - start);
+    int after = Math.max(0, end - Math.max(start, preferredEnd));
+    return before + after;
+  }
+
+  /**
+   * Returns a slot that is at least as good as any slot starting at or after {@code start}. Nobody
+   * optional is busy, and the minutes outside the preferred hours only grow once the slot starts
+   * inside or after them.
+   */
+  private Slot lowerBound(int start) {
+    return new Slot(start, 0, outside(Math.max(start, preferredStart)));
+  }
+
+  private static final class Slot {
+    final int start;
+    final int busyCount;
+    final int outside;
+
+    Slot(int start, int busyCount, int outside) {
+      this.start = start;
+      this.busyCount = busyCount;
+      this.outside = outside;
+    }
+  }
+}
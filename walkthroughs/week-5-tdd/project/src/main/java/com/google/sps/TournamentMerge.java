@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Merges the busy time of many people by pairing their merged interval arrays up like the rounds
+ * of a tournament: neighbours are combined with {@link Intervals#union}, then the results are
+ * combined again, until one array is left. Every interval takes part in a logarithmic number of
+ * unions, and the two halves of each round are independent, so large groups are split across the
+ * common fork-join pool.
+ */
+final class TournamentMerge {
+  // Groups smaller than this are cheaper to concatenate and sort on the calling thread.
+  static final int PARALLEL_THRESHOLD = 64;
+
+  // Below this many arrays a task merges on its own thread instead of splitting again.
+  private static final int LEAF_SIZE = 8;
+
+  private TournamentMerge() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the union of the merged arrays in {@code busy} as one merged array.
+   */
+  static long[] union(List<long[]> busy) {
+    if (busy.isEmpty()) {
+      return Intervals.EMPTY;
+    }
+    return ForkJoinPool.commonPool().invoke(new Round(busy, 0, busy.size()));
+  }
+
+  private static long[] unionSequential(List<long[]> busy, int from, int to) {
+    if (to - from == 1) {
+      return busy.get(from);
+    }
+    int middle = (from + to) >>> 1;
+    return Intervals.union(unionSequential(busy, from, middle), unionSequential(busy, middle, to));
+  }
+
+  private static final class Round extends RecursiveTask<long[]> {
+    private final List<long[]> busy;
+    private final int from;
+    private final int to;
+
+    Round(List<long[]> busy, int from, int to) {
+      this.busy = busy;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (to - from <= LEAF_SIZE) {
+        return unionSequential(busy, from, to);
+      }
+
+      int middle = (from + to) >>> 1;
+      Round left = new Round(busy, from, middle);
+      left.fork();
+      long[] right = new Round(busy, middle, to).compute();
+      return Intervals.union(left.join(), right);
+    }
+  }
+}
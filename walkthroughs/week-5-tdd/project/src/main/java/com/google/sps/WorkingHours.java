@@ -0,0 +1,115 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The hours a person is willing to meet, in their own time zone. For example, 9:00 to 17:00 on
+ * weekdays in {@code America/New_York}. If {@code end} is not after {@code start} the working day
+ * is taken to run past midnight into the next day.
+ */
+public final class WorkingHours {
+  private final ZoneId zone;
+  private final LocalTime start;
+  private final LocalTime end;
+  private final Set<DayOfWeek> days;
+
+  /**
+   * Creates new working hours.
+   *
+   * @param zone The time zone the hours are given in. Must be non-null.
+   * @param start The time the working day starts. Must be non-null.
+   * @param end The time the working day ends. Must be non-null.
+   * @param days The days of the week the person works, judged by the day {@code start} falls on.
+   *     Must be non-null.
+   */
+  public WorkingHours(ZoneId zone, LocalTime start, LocalTime end, Collection<DayOfWeek> days) {
+    if (zone == null || start == null || end == null || days == null) {
+      throw new IllegalArgumentException("working hours cannot have null fields");
+    }
+
+    this.zone = zone;
+    this.start = start;
+    this.end = end;
+    this.days = days.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(days);
+  }
+
+  /**
+   * Returns working hours from {@code start} to {@code end} Monday through Friday.
+   */
+  public static WorkingHours weekdays(ZoneId zone, LocalTime start, LocalTime end) {
+    return new WorkingHours(zone, start, end, EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+  }
+
+  /**
+   * Returns the time zone the hours are given in.
+   */
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  /**
+   * Returns the local time the working day starts.
+   */
+  public LocalTime getStart() {
+    return start;
+  }
+
+  /**
+   * Returns the local time the working day ends.
+   */
+  public LocalTime getEnd() {
+    return end;
+  }
+
+  /**
+   * Returns the time this person is working inside {@code window}, as a merged array of packed
+   * epoch-minute intervals. Daylight saving changes are taken into account, so a 9:00 start stays
+   * at 9:00 local time all year.
+   */
+  long[] workingIntervals(EpochTimeRange window) {
+    // Start a day early so that a working day that began before the window and runs into it (for
+    // example an overnight shift) is not missed.
+    LocalDate first = window.startInstant().atZone(zone).toLocalDate().minusDays(1);
+    LocalDate last = window.endInstant().atZone(zone).toLocalDate();
+
+    long[] intervals = new long[(int) (last.toEpochDay() - first.toEpochDay() + 1)];
+    int count = 0;
+    for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+      if (!days.contains(date.getDayOfWeek())) {
+        continue;
+      }
+
+      ZonedDateTime dayStart = ZonedDateTime.of(date, start, zone);
+      ZonedDateTime dayEnd =
+          ZonedDateTime.of(end.isAfter(start) ? date : date.plusDays(1), end, zone);
+      int from = Math.max(window.start(), EpochTimeRange.toEpochMinute(dayStart.toInstant()));
+      int to = Math.min(window.end(), EpochTimeRange.toEpochMinute(dayEnd.toInstant()));
+      if (from < to) {
+        intervals[count++] = Intervals.of(from, to);
+      }
+    }
+    return Arrays.copyOf(intervals, Intervals.mergeInPlace(intervals, count));
+  }
+}
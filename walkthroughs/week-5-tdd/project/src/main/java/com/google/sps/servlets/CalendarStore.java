@@ -0,0 +1,59 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.EventStore;
+import com.google.sps.Events;
+import com.google.sps.FileEventStore;
+import com.google.sps.InMemoryEventStore;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * The event store the servlets share. Start the server with {@code -Dcalendar.dir=<directory>} to
+ * keep the calendar in that directory across restarts; it starts out empty there. Without it, the
+ * sample events in {@code Events} are served from memory.
+ *
+ * <p>A kept calendar writes a new snapshot whenever its log grows past
+ * {@code -Dcalendar.compactAfter=<bytes>}, by default
+ * {@link FileEventStore#DEFAULT_COMPACT_AFTER}, so a restart never replays more than that.
+ */
+final class CalendarStore {
+  static final EventStore STORE = open(System.getProperty("calendar.dir"),
+      Long.getLong("calendar.compactAfter", FileEventStore.DEFAULT_COMPACT_AFTER));
+
+  private CalendarStore() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the store kept in {@code directory}, compacted once its log grows past
+   * {@code compactAfter} bytes, or the sample events in memory if {@code directory} is
+   * {@code null}.
+   */
+  static EventStore open(String directory, long compactAfter) {
+    if (directory == null) {
+      return new InMemoryEventStore(Arrays.asList(Events.events));
+    }
+
+    try {
+      return FileEventStore.open(Paths.get(directory), compactAfter);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
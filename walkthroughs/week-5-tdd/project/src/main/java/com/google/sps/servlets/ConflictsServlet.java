@@ -0,0 +1,56 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.CalendarJson;
+import com.google.sps.Event;
+import com.google.sps.EventConflicts;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Returns every pair of overlapping events in the calendar that share an attendee, as
+ * {@code [{"events": [Event, Event], "attendees": ["Name"]}]}. {@code ?start=M&end=N}, in minutes
+ * of the day, only looks at the events overlapping that window; either bound may be left out.
+ *
+ * <p>The pairs are found with a sweep over each attendee's events, see {@link EventConflicts}.
+ */
+@WebServlet("/conflicts")
+public class ConflictsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String start = request.getParameter("start");
+    String end = request.getParameter("end");
+
+    Iterable<Event> events;
+    if (start == null && end == null) {
+      events = CalendarStore.STORE.getEvents();
+    } else {
+      TimeRange window = RequestParameters.window(request);
+      if (window == null) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a valid time window.");
+        return;
+      }
+      events = CalendarStore.STORE.getEvents(window);
+    }
+
+    response.setContentType("application/json");
+    CalendarJson.writeConflicts(EventConflicts.find(events), response.getWriter());
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.sps.CalendarJson;
+import com.google.sps.Event;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Changes the calendar. Events have no ids, so they are named by their full contents.
+ *
+ * <ul>
+ *   <li>{@code POST} with an event adds it.
+ *   <li>{@code PUT} with {@code {"event": {...}, "replacement": {...}}} replaces the event with
+ *       the replacement in one step.
+ *   <li>{@code DELETE} with an event removes it.
+ * </ul>
+ *
+ * Events must start and end within the day; bodies with any other event are answered with 400.
+ *
+ * Every change is published to readers as a whole, so queries running at the same time never wait
+ * for it and never see half of it.
+ */
+@WebServlet("/events")
+public class EventsServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Event event = readEvent(request, response);
+    if (event == null) {
+      return;
+    }
+    CalendarStore.STORE.add(event);
+
+    response.setStatus(HttpServletResponse.SC_CREATED);
+    response.setContentType("application/json");
+    CalendarJson.gson().toJson(event, Event.class, response.getWriter());
+  }
+
+  @Override
+  public void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Event event;
+    Event replacement;
+    try {
+      JsonObject body = CalendarJson.gson().fromJson(request.getReader(), JsonObject.class);
+      event = body == null ? null : CalendarJson.gson().fromJson(body.get("event"), Event.class);
+      replacement = body == null
+          ? null : CalendarJson.gson().fromJson(body.get("replacement"), Event.class);
+    } catch (JsonParseException e) {
+      event = null;
+      replacement = null;
+    }
+    if (event == null || replacement == null) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST, "Expected an event and its replacement.");
+      return;
+    }
+
+    if (!CalendarStore.STORE.replace(event, replacement)) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such event.");
+      return;
+    }
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    Event event = readEvent(request, response);
+    if (event == null) {
+      return;
+    }
+
+    if (!CalendarStore.STORE.remove(event)) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such event.");
+      return;
+    }
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+
+  /** Reads the event in the body, or answers with an error and returns null if there is none. */
+  private static Event readEvent(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    Event event;
+    try {
+      event = CalendarJson.gson().fromJson(request.getReader(), Event.class);
+    } catch (JsonParseException e) {
+      event = null;
+    }
+    if (event == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an event.");
+    }
+    return event;
+  }
+}
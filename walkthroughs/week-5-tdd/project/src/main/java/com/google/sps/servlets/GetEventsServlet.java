@@ -14,23 +14,72 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.sps.CalendarJson;
+import com.google.sps.Event;
+import com.google.sps.EventPage;
+import com.google.sps.TimeRange;
 import java.io.IOException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Returns the events of the calendar, in time order once any filter is given.
+ *
+ * <ul>
+ *   <li>{@code ?start=M&end=N}, in minutes of the day, keeps the events overlapping that window;
+ *       either bound may be left out.
+ *   <li>{@code ?attendee=Name} keeps the events that person takes part in.
+ *   <li>{@code ?limit=K} returns at most K events as {@code {"events": [...], "next": "cursor"}};
+ *       pass {@code &cursor=...} with the same filters to get the following page. {@code next} is
+ *       {@code null} on the last page.
+ * </ul>
+ *
+ * <p>Filtered requests are answered from the store's time index, so only matching events are read
+ * and written out.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    String start = request.getParameter("start");
+    String end = request.getParameter("end");
+    String attendee = request.getParameter("attendee");
+    String cursor = request.getParameter("cursor");
+    String limit = request.getParameter("limit");
 
-    // Send the JSON back as the response
+    if (start == null && end == null && attendee == null && cursor == null && limit == null) {
+      // Stream the events as JSON straight into the response
+      response.setContentType("application/json");
+      CalendarJson.writeEvents(CalendarStore.STORE.getEvents(), response.getWriter());
+      return;
+    }
+
+    TimeRange window = RequestParameters.window(request);
+    if (window == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a valid time window.");
+      return;
+    }
+
+    if (cursor == null && limit == null) {
+      Iterable<Event> events = attendee == null
+          ? CalendarStore.STORE.getEvents(window)
+          : CalendarStore.STORE.getEvents(window, attendee, null, Integer.MAX_VALUE).getEvents();
+      response.setContentType("application/json");
+      CalendarJson.writeEvents(events, response.getWriter());
+      return;
+    }
+
+    int pageSize = RequestParameters.parse(limit, Integer.MAX_VALUE);
+    EventPage page;
+    try {
+      page = CalendarStore.STORE.getEvents(window, attendee, cursor, pageSize);
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    CalendarJson.writeEventPage(page, response.getWriter());
   }
 }
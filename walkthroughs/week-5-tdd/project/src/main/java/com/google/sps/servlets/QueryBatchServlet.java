@@ -0,0 +1,68 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.sps.CalendarJson;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers many meeting requests in one call. The body is a JSON array of requests in the same
+ * format {@code /query} takes, and the response is a JSON array holding the answer to each request
+ * in the same order.
+ */
+@WebServlet("/query-batch")
+public class QueryBatchServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // Convert the JSON to a list of MeetingRequests.
+    MeetingRequest[] meetingRequests;
+    try {
+      meetingRequests = CalendarJson.gson().fromJson(request.getReader(), MeetingRequest[].class);
+    } catch (JsonParseException e) {
+      meetingRequests = null;
+    }
+    if (meetingRequests == null || Arrays.asList(meetingRequests).contains(null)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an array of requests.");
+      return;
+    }
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      if (QueryServlet.asksForRoom(meetingRequest)) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, QueryServlet.ROOMS_NOT_SERVED);
+        return;
+      }
+    }
+
+    // Find the possible meeting times for all of them at once.
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+    List<Collection<TimeRange>> answers =
+        findMeetingQuery.queryAll(
+            CalendarStore.STORE.getIndex(), Arrays.asList(meetingRequests));
+
+    // Stream the times as JSON straight into the response
+    response.setContentType("application/json");
+    CalendarJson.writeAnswers(answers, response.getWriter());
+  }
+}
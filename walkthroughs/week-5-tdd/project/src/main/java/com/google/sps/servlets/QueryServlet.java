@@ -14,13 +14,13 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.sps.FindMeetingQuery;
+import com.google.gson.JsonParseException;
+import com.google.sps.CalendarJson;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryCache;
+import com.google.sps.QueryMetrics;
 import com.google.sps.TimeRange;
-import com.google.gson.Gson;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Collection;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -29,23 +29,79 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  // How long each phase of a query takes, served by MetricsServlet.
+  static final QueryMetrics METRICS = new QueryMetrics();
+
+  // Answers to recently asked questions, retired as the calendars of the people involved change.
+  private static final QueryCache CACHE =
+      new QueryCache(CalendarStore.STORE.getIndex(), 1024, METRICS);
+
+  // The site has no rooms to book, so searches that ask for one are turned down rather than
+  // answered as if they hadn't.
+  static final String ROOMS_NOT_SERVED =
+      "Rooms are not served; leave out room_capacity and room_equipment.";
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
+    QueryMetrics.Timer timer = METRICS.start();
+    try {
+      answer(request, response, timer);
+    } finally {
+      timer.finish();
+    }
+  }
 
+  private static void answer(
+      HttpServletRequest request, HttpServletResponse response, QueryMetrics.Timer timer)
+      throws IOException {
     // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = CalendarJson.gson().fromJson(request.getReader(), MeetingRequest.class);
+    } catch (JsonParseException e) {
+      meetingRequest = null;
+    }
+    timer.lap(QueryMetrics.Phase.PARSE);
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request.");
+      return;
+    }
+    if (asksForRoom(meetingRequest)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, ROOMS_NOT_SERVED);
+      return;
+    }
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    // Find the possible meeting times, fitting in as many optional attendees as possible. With
+    // ?top=K only the K best slots are returned, best first.
+    Collection<TimeRange> answer;
+    String top = request.getParameter("top");
+    if (top == null) {
+      answer = CACHE.queryWithOptionalAttendees(meetingRequest);
+    } else {
+      int k;
+      try {
+        k = Integer.parseInt(top);
+      } catch (NumberFormatException e) {
+        k = 0;
+      }
+      if (k < 1) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "top must be a positive number.");
+        return;
+      }
+      answer = CACHE.queryTopK(meetingRequest, k, TimeRange.WHOLE_DAY);
+    }
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    // The search was timed by the cache, if it ran at all, so serializing starts the clock anew.
+    timer.skip();
 
-    // Send the JSON back as the response
+    // Stream the times as JSON straight into the response
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    CalendarJson.writeTimeRanges(answer, response.getWriter());
+    timer.lap(QueryMetrics.Phase.SERIALIZE);
+  }
+
+  /** Checks if {@code request} asks for a room, which the servlets can't search for. */
+  static boolean asksForRoom(MeetingRequest request) {
+    return request.getRoomCapacity() > 0 || !request.getRoomEquipment().isEmpty();
   }
 }
@@ -0,0 +1,56 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.TimeRange;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Reads the query parameters the servlets have in common.
+ */
+final class RequestParameters {
+  private RequestParameters() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the window given by {@code ?start=M&end=N}, in minutes of the day, with a missing bound
+   * taken as the start or end of the day. Returns {@code null} if either bound is not a number or
+   * the window is backwards.
+   */
+  static TimeRange window(HttpServletRequest request) {
+    int from = parse(request.getParameter("start"), TimeRange.START_OF_DAY);
+    int to = parse(request.getParameter("end"), TimeRange.WHOLE_DAY.end());
+    if (from < TimeRange.START_OF_DAY || to < from) {
+      return null;
+    }
+    return TimeRange.fromStartEnd(from, to, false);
+  }
+
+  /**
+   * Returns {@code value} as a number, {@code otherwise} if it is missing, or -1 if it is not a
+   * number.
+   */
+  static int parse(String value, int otherwise) {
+    if (value == null) {
+      return otherwise;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
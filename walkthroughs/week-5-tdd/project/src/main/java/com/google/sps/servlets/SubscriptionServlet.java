@@ -0,0 +1,174 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.sps.AvailabilityDelta;
+import com.google.sps.AvailabilitySubscriptions;
+import com.google.sps.CalendarJson;
+import com.google.sps.MeetingRequest;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps the answer to a meeting request up to date without asking again.
+ *
+ * <ul>
+ *   <li>{@code POST} with a meeting request returns {@code {"id": 1, "slots": [...]}}.
+ *   <li>{@code GET ?id=1} returns the changes since the last {@code GET} as
+ *       {@code [{"added": [...], "removed": [...]}]}.
+ *   <li>{@code DELETE ?id=1} ends the subscription.
+ * </ul>
+ *
+ * <p>Only mandatory attendees are taken into account, see {@link AvailabilitySubscriptions}.
+ *
+ * <p>A subscription holds at most {@link #MAX_PENDING} changes between two {@code GET}s; one that
+ * falls further behind is ended and its next {@code GET} returns 410, so the caller subscribes
+ * again. Subscriptions not read for {@link #IDLE_MILLIS} are ended as well.
+ */
+@WebServlet("/subscriptions")
+public class SubscriptionServlet extends HttpServlet {
+  static final int MAX_PENDING = 1000;
+  static final long IDLE_MILLIS = 10 * 60 * 1000;
+
+  // Hears about every change to the shared store.
+  static final AvailabilitySubscriptions SUBSCRIPTIONS =
+      new AvailabilitySubscriptions(CalendarStore.STORE);
+
+  // Changes waiting to be picked up, by subscription id.
+  private static final Map<Long, Pending> PENDING = new ConcurrentHashMap<>();
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = CalendarJson.gson().fromJson(request.getReader(), MeetingRequest.class);
+    } catch (JsonParseException e) {
+      meetingRequest = null;
+    }
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request.");
+      return;
+    }
+    if (QueryServlet.asksForRoom(meetingRequest)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, QueryServlet.ROOMS_NOT_SERVED);
+      return;
+    }
+
+    endIdleSubscriptions();
+    Pending pending = new Pending();
+    long id = SUBSCRIPTIONS.subscribe(meetingRequest, pending::offer);
+    PENDING.put(id, pending);
+
+    response.setContentType("application/json");
+    CalendarJson.writeSubscription(id, SUBSCRIPTIONS.getSlots(id), response.getWriter());
+  }
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    endIdleSubscriptions();
+    long id = parseId(request);
+    Pending pending = PENDING.get(id);
+    if (pending == null) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such subscription.");
+      return;
+    }
+    if (pending.overflowed) {
+      end(id);
+      response.sendError(HttpServletResponse.SC_GONE, "Too many changes; subscribe again.");
+      return;
+    }
+
+    List<AvailabilityDelta> deltas = pending.drain();
+
+    response.setContentType("application/json");
+    CalendarJson.writeDeltas(deltas, response.getWriter());
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    long id = parseId(request);
+    if (!SUBSCRIPTIONS.unsubscribe(id)) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such subscription.");
+      return;
+    }
+    PENDING.remove(id);
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+
+  private static void end(long id) {
+    SUBSCRIPTIONS.unsubscribe(id);
+    PENDING.remove(id);
+  }
+
+  private static void endIdleSubscriptions() {
+    long now = System.currentTimeMillis();
+    for (Map.Entry<Long, Pending> entry : PENDING.entrySet()) {
+      if (now - entry.getValue().lastRead > IDLE_MILLIS) {
+        end(entry.getKey());
+      }
+    }
+  }
+
+  private static long parseId(HttpServletRequest request) {
+    try {
+      return Long.parseLong(request.getParameter("id"));
+    } catch (NumberFormatException e) {
+      // Ids start at 1, so this never matches a subscription.
+      return 0;
+    }
+  }
+
+  /**
+   * The changes of one subscription that have not been read yet.
+   */
+  private static final class Pending {
+    private final Queue<AvailabilityDelta> deltas = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile boolean overflowed;
+    private volatile long lastRead = System.currentTimeMillis();
+
+    // Called with the subscriptions locked, so it never blocks.
+    void offer(AvailabilityDelta delta) {
+      if (size.incrementAndGet() > MAX_PENDING) {
+        size.decrementAndGet();
+        overflowed = true;
+        return;
+      }
+      deltas.add(delta);
+    }
+
+    List<AvailabilityDelta> drain() {
+      lastRead = System.currentTimeMillis();
+      List<AvailabilityDelta> drained = new ArrayList<>();
+      for (AvailabilityDelta delta = deltas.poll(); delta != null; delta = deltas.poll()) {
+        size.decrementAndGet();
+        drained.add(delta);
+      }
+      return drained;
+    }
+  }
+}
@@ -0,0 +1,217 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final Event EVENT_1 = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A));
+  private static final Event EVENT_2 = new Event("Event 2",
+      TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false), Arrays.asList(PERSON_A, PERSON_B));
+
+  @Test
+  public void unknownAttendeeIsNeverBusy() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_1));
+
+    Assert.assertEquals(Arrays.asList(), index.getBusy(PERSON_B));
+  }
+
+  @Test
+  public void overlappingEventsAreMerged() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_2, EVENT_1));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false)),
+        index.getBusy(PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false)),
+        index.getBusy(PERSON_B));
+  }
+
+  @Test
+  public void removedEventFreesItsAttendees() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_1, EVENT_2));
+
+    Assert.assertTrue(index.remove(EVENT_2));
+
+    Assert.assertEquals(Arrays.asList(EVENT_1.getWhen()), index.getBusy(PERSON_A));
+    Assert.assertEquals(Arrays.asList(), index.getBusy(PERSON_B));
+  }
+
+  @Test
+  public void removingUnknownEventChangesNothing() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_1));
+
+    Assert.assertFalse(index.remove(EVENT_2));
+
+    Assert.assertEquals(Arrays.asList(EVENT_1.getWhen()), index.getBusy(PERSON_A));
+  }
+
+  @Test
+  public void readersNeverSeeHalfOfReplace() throws InterruptedException {
+    // Both people are always in the same events, so any reader must see them equally busy.
+    AttendeeIndex index = new AttendeeIndex();
+    Event morning = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A, PERSON_B));
+    Event later = new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A, PERSON_B));
+    index.add(morning);
+
+    Thread writer = new Thread(() -> {
+      for (int i = 0; i < 20_000; i++) {
+        Assert.assertTrue(i % 2 == 0 ? index.replace(morning, later)
+                                     : index.replace(later, morning));
+      }
+    });
+    writer.start();
+    boolean torn = false;
+    while (writer.isAlive()) {
+      Map<String, long[]> busy = index.busyIntervals(Arrays.asList(PERSON_A, PERSON_B));
+      torn |= !Arrays.equals(busy.get(PERSON_A), busy.get(PERSON_B));
+    }
+    writer.join();
+
+    Assert.assertFalse(torn);
+    Assert.assertEquals(Arrays.asList(morning.getWhen()), index.getBusy(PERSON_B));
+  }
+
+  @Test
+  public void replacingUnknownEventChangesNothing() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_1));
+
+    Assert.assertFalse(index.replace(EVENT_2, EVENT_1));
+    Assert.assertEquals(Arrays.asList(EVENT_1.getWhen()), index.getBusy(PERSON_A));
+  }
+
+  @Test
+  public void freeTimeFollowsChanges() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(EVENT_1));
+    Collection<String> people = Arrays.asList(PERSON_A);
+    Assert.assertArrayEquals(
+        Intervals.fromTimeRanges(Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true))),
+        index.freeIntervals(people, 0, 0).get(PERSON_A));
+
+    index.add(EVENT_2);
+
+    Assert.assertArrayEquals(
+        Intervals.fromTimeRanges(Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true))),
+        index.freeIntervals(people, 0, 0).get(PERSON_A));
+  }
+
+  @Test
+  public void freeTimeIsJoinedAcrossMidnight() {
+    // A is busy for an hour on each of two days, so they are free from the end of the first event
+    // right through midnight to the start of the second.
+    int day = 20000 * AttendeeIndex.DAY_MINUTES;
+    AttendeeIndex index = new AttendeeIndex();
+    index.add(new DatedEvent("Event 1",
+        EpochTimeRange.fromStartEnd(day + TIME_0800AM, day + TIME_0900AM),
+        Arrays.asList(PERSON_A)));
+    int nextDay = day + AttendeeIndex.DAY_MINUTES;
+    index.add(new DatedEvent("Event 2",
+        EpochTimeRange.fromStartEnd(nextDay + TIME_0800AM, nextDay + TIME_0900AM),
+        Arrays.asList(PERSON_A)));
+
+    Map<String, long[]> free =
+        index.freeIntervals(Arrays.asList(PERSON_A, PERSON_B), 20000, 20001);
+
+    Assert.assertArrayEquals(new long[] {
+        Intervals.of(day, day + TIME_0800AM),
+        Intervals.of(day + TIME_0900AM, nextDay + TIME_0800AM),
+        Intervals.of(nextDay + TIME_0900AM, nextDay + AttendeeIndex.DAY_MINUTES)},
+        free.get(PERSON_A));
+    Assert.assertArrayEquals(new long[] {Intervals.of(day, nextDay + AttendeeIndex.DAY_MINUTES)},
+        free.get(PERSON_B));
+  }
+
+  @Test
+  public void editorGathersChangesUntilPublished() {
+    AttendeeIndex index = new AttendeeIndex();
+    AttendeeIndex.Editor editor = index.edit();
+    editor.add(EVENT_2);
+    editor.add(EVENT_1);
+    editor.add(EVENT_2);
+    Assert.assertTrue(editor.remove(EVENT_2));
+    Assert.assertFalse(editor.remove(new Event("Event 3",
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false), Arrays.asList(PERSON_B))));
+
+    Assert.assertEquals(Arrays.asList(), index.getBusy(PERSON_A));
+    editor.publish();
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false)),
+        index.getBusy(PERSON_A));
+    Assert.assertEquals(Arrays.asList(EVENT_2.getWhen()), index.getBusy(PERSON_B));
+    Assert.assertTrue(index.remove(EVENT_2));
+    Assert.assertEquals(Arrays.asList(EVENT_1.getWhen()), index.getBusy(PERSON_A));
+    Assert.assertEquals(Arrays.asList(), index.getBusy(PERSON_B));
+  }
+
+  @Test
+  public void freeTimeOfUntouchedDaysIsKept() {
+    int day = 20000 * AttendeeIndex.DAY_MINUTES;
+    int nextDay = day + AttendeeIndex.DAY_MINUTES;
+    AttendeeIndex index = new AttendeeIndex();
+    index.add(new DatedEvent("Event 1",
+        EpochTimeRange.fromStartEnd(day + TIME_0800AM, day + TIME_0900AM),
+        Arrays.asList(PERSON_A)));
+    Collection<String> people = Arrays.asList(PERSON_A);
+    long[] firstDay = index.freeIntervals(people, 20000, 20000).get(PERSON_A);
+    index.freeIntervals(people, 20001, 20001);
+
+    index.add(new DatedEvent("Event 2",
+        EpochTimeRange.fromStartEnd(nextDay + TIME_0800AM, nextDay + TIME_0900AM),
+        Arrays.asList(PERSON_A)));
+
+    Assert.assertSame(firstDay, index.freeIntervals(people, 20000, 20000).get(PERSON_A));
+    Assert.assertArrayEquals(new long[] {
+        Intervals.of(nextDay, nextDay + TIME_0800AM),
+        Intervals.of(nextDay + TIME_0900AM, nextDay + AttendeeIndex.DAY_MINUTES)},
+        index.freeIntervals(people, 20001, 20001).get(PERSON_A));
+  }
+
+  @Test
+  public void queryMatchesEventScan() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    AttendeeIndex index = new AttendeeIndex(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Emma", "Liam"), 30);
+    request.addOptionalAttendee("Ava");
+    request.addOptionalAttendee("Oliver");
+
+    Assert.assertEquals(query.query(events, request), query.query(index, request));
+    Assert.assertEquals(query.queryWithOptionalAttendees(events, request),
+        query.queryWithOptionalAttendees(index, request));
+  }
+}
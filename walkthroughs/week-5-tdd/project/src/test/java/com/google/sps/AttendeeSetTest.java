@@ -0,0 +1,62 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeSetTest {
+  @Test
+  public void behavesLikeAnySetOfNames() {
+    Set<String> names = new HashSet<>(Arrays.asList("Person A", "Person B"));
+
+    Set<String> attendees =
+        new AttendeeSet(AttendeeSet.of(Arrays.asList("Person B", "Person A", "Person B")));
+
+    Assert.assertEquals(names, attendees);
+    Assert.assertEquals(attendees, names);
+    Assert.assertEquals(names.hashCode(), attendees.hashCode());
+    Assert.assertTrue(attendees.contains("Person A"));
+    Assert.assertFalse(attendees.contains("Nobody Interned This Name"));
+  }
+
+  @Test
+  public void intersectsFindsSharedIds() {
+    int[] small = {5, 900};
+    int[] large = new int[100];
+    for (int i = 0; i < large.length; i++) {
+      large[i] = i * 3;
+    }
+
+    Assert.assertFalse(AttendeeSet.intersects(small, large));
+    Assert.assertTrue(AttendeeSet.intersects(new int[] {6, 7}, large));
+    Assert.assertTrue(AttendeeSet.intersects(new int[] {297}, large));
+    Assert.assertFalse(AttendeeSet.intersects(AttendeeSet.EMPTY, large));
+  }
+
+  @Test
+  public void withKeepsOrder() {
+    Assert.assertArrayEquals(new int[] {1, 2, 3}, AttendeeSet.with(new int[] {1, 3}, 2));
+    int[] ids = {1, 3};
+    Assert.assertSame(ids, AttendeeSet.with(ids, 3));
+  }
+}
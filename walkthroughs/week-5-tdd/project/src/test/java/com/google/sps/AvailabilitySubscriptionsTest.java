@@ -0,0 +1,164 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AvailabilitySubscriptionsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  private InMemoryEventStore store;
+  private AvailabilitySubscriptions subscriptions;
+  private List<AvailabilityDelta> deltas;
+
+  @Before
+  public void setUp() {
+    store = new InMemoryEventStore(Collections.emptyList());
+    subscriptions = new AvailabilitySubscriptions(store);
+    deltas = new ArrayList<>();
+  }
+
+  @Test
+  public void addedEventSplitsSlot() {
+    long id = subscriptions.subscribe(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES), deltas::add);
+
+    store.add(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(1, deltas.size());
+    Assert.assertEquals(id, deltas.get(0).getSubscriptionId());
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true)),
+        deltas.get(0).getAdded());
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), deltas.get(0).getRemoved());
+    Assert.assertEquals(deltas.get(0).getAdded(), subscriptions.getSlots(id));
+  }
+
+  @Test
+  public void removedEventJoinsSlots() {
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A));
+    store.add(event);
+    long id = subscriptions.subscribe(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES), deltas::add);
+
+    Assert.assertTrue(store.remove(event));
+
+    Assert.assertEquals(1, deltas.size());
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), deltas.get(0).getAdded());
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), subscriptions.getSlots(id));
+  }
+
+  @Test
+  public void eventForOtherPeopleIsNotReported() {
+    subscriptions.subscribe(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES), deltas::add);
+
+    store.add(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(PERSON_B)));
+
+    Assert.assertEquals(0, deltas.size());
+  }
+
+  @Test
+  public void changeHiddenByOtherAttendeeIsNotReported() {
+    // B is already busy all morning, so A's new event does not change when they can both meet.
+    store.add(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false), Arrays.asList(PERSON_B)));
+    subscriptions.subscribe(
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES), deltas::add);
+
+    store.add(new Event("Event 2",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(0, deltas.size());
+  }
+
+  @Test
+  public void unsubscribedRequestIsNotReported() {
+    long id = subscriptions.subscribe(
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES), deltas::add);
+
+    Assert.assertTrue(subscriptions.unsubscribe(id));
+    store.add(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(0, deltas.size());
+    Assert.assertNull(subscriptions.getSlots(id));
+  }
+
+  @Test
+  public void slotsMatchFullQueryAfterRandomChanges() {
+    Random random = new Random(9);
+    String[] people = {PERSON_A, PERSON_B, PERSON_C};
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR);
+    List<TimeRange> slots =
+        new ArrayList<>(new FindMeetingQuery().query(store.getIndex(), request));
+    long id = subscriptions.subscribe(request, delta -> {
+      slots.removeAll(delta.getRemoved());
+      slots.addAll(delta.getAdded());
+    });
+
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      if (!events.isEmpty() && random.nextInt(3) == 0) {
+        store.remove(events.remove(random.nextInt(events.size())));
+      } else {
+        int start = random.nextInt(TimeRange.END_OF_DAY);
+        int end = start + 1 + random.nextInt(Math.min(120, TimeRange.END_OF_DAY - start));
+        Event event = new Event("Event " + i, TimeRange.fromStartEnd(start, end, false),
+            Arrays.asList(people[random.nextInt(people.length)]));
+        events.add(event);
+        store.add(event);
+      }
+
+      List<TimeRange> expected =
+          new ArrayList<>(new FindMeetingQuery().query(store.getIndex(), request));
+      Assert.assertEquals(expected, subscriptions.getSlots(id));
+      Assert.assertEquals(expected, sorted(slots));
+    }
+  }
+
+  private static List<TimeRange> sorted(List<TimeRange> ranges) {
+    TreeSet<TimeRange> set = new TreeSet<>(TimeRange.ORDER_BY_START);
+    set.addAll(ranges);
+    return new ArrayList<>(set);
+  }
+}
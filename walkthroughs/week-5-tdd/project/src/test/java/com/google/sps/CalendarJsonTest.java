@@ -0,0 +1,133 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarJsonTest {
+  @Test
+  public void eventsUsePageFormat() throws IOException {
+    StringWriter out = new StringWriter();
+    CalendarJson.writeEvents(Arrays.asList(new Event("Team Sync",
+        TimeRange.fromStartDuration(630, 30), Arrays.asList("Person A"))), out);
+
+    Assert.assertEquals("[{\"title\":\"Team Sync\",\"when\":{\"start\":630,\"duration\":30},"
+        + "\"attendees\":[\"Person A\"]}]", out.toString());
+  }
+
+  @Test
+  public void eventsRoundTrip() {
+    Gson gson = CalendarJson.gson();
+
+    Event[] actual = gson.fromJson(gson.toJson(Events.events), Event[].class);
+
+    Assert.assertArrayEquals(Events.events, actual);
+  }
+
+  @Test
+  public void timeRangesMatchReflectionFormat() throws IOException {
+    StringWriter out = new StringWriter();
+    CalendarJson.writeTimeRanges(Arrays.asList(TimeRange.fromStartDuration(60, 30)), out);
+
+    Assert.assertEquals("[{\"start\":60,\"duration\":30}]", out.toString());
+  }
+
+  @Test
+  public void readsRequestFromPage() {
+    // The page sends the duration as a string.
+    String json = "{\"duration\":\"30\",\"attendees\":[\"Person A\"],"
+        + "\"optional_attendees\":[\"Person A\",\"Person B\"]}";
+
+    MeetingRequest request = CalendarJson.gson().fromJson(json, MeetingRequest.class);
+
+    Assert.assertEquals(30, request.getDuration());
+    Assert.assertEquals(new HashSet<>(Arrays.asList("Person A")),
+        new HashSet<>(request.getAttendees()));
+    Assert.assertEquals(new HashSet<>(Arrays.asList("Person B")),
+        new HashSet<>(request.getOptionalAttendees()));
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void nullAttendeeIsRejected() {
+    CalendarJson.gson().fromJson(
+        "{\"duration\":30,\"attendees\":[\"Person A\",null]}", MeetingRequest.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void negativeRoomCapacityIsRejected() {
+    CalendarJson.gson().fromJson(
+        "{\"duration\":30,\"attendees\":[],\"room_capacity\":-1,"
+            + "\"room_equipment\":[\"projector\"]}", MeetingRequest.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void durationThatIsNotANumberIsRejected() {
+    CalendarJson.gson().fromJson(
+        "{\"duration\":\"abc\",\"attendees\":[\"Person A\"]}", MeetingRequest.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void roomCapacityThatIsNotANumberIsRejected() {
+    CalendarJson.gson().fromJson(
+        "{\"duration\":30,\"attendees\":[],\"room_capacity\":\"x\"}", MeetingRequest.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void eventStartThatIsNotANumberIsRejected() {
+    CalendarJson.gson().fromJson("{\"title\":\"Event 1\",\"when\":{\"start\":\"zz\","
+        + "\"duration\":30},\"attendees\":[]}", Event.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void eventDurationThatIsNotANumberIsRejected() {
+    CalendarJson.gson().fromJson("{\"title\":\"Event 1\",\"when\":{\"start\":60,"
+        + "\"duration\":[]},\"attendees\":[]}", Event.class);
+  }
+
+  @Test
+  public void eventOutsideTheDayIsRejected() {
+    String[] whens = {"{\"start\":-30,\"duration\":60}", "{\"start\":60,\"duration\":-30}",
+        "{\"start\":1410,\"duration\":60}", "{\"start\":2147483647,\"duration\":1}"};
+    for (String when : whens) {
+      try {
+        CalendarJson.gson().fromJson(
+            "{\"title\":\"Event 1\",\"when\":" + when + ",\"attendees\":[]}", Event.class);
+        Assert.fail("Accepted " + when);
+      } catch (JsonParseException expected) {
+        // Answered with 400 by EventsServlet.
+      }
+    }
+  }
+
+  @Test
+  public void eventEndingAtMidnightIsAccepted() {
+    Event event = CalendarJson.gson().fromJson(
+        "{\"title\":\"Event 1\",\"when\":{\"start\":1380,\"duration\":60},\"attendees\":[]}",
+        Event.class);
+
+    Assert.assertEquals(TimeRange.fromStartDuration(1380, 60), event.getWhen());
+  }
+}
@@ -0,0 +1,59 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class DayBitmapTest {
+  @Test
+  public void rangesAcrossWordBoundaries() {
+    long[] busy = {Intervals.of(63, 65), Intervals.of(128, 320), Intervals.of(1400, 1440)};
+
+    long[] expected = {Intervals.of(0, 63), Intervals.of(65, 128), Intervals.of(320, 1400)};
+    Assert.assertArrayEquals(expected, DayBitmap.freeRuns(DayBitmap.of(busy), 0));
+  }
+
+  @Test
+  public void emptyDayIsOneRun() {
+    long[] expected = {Intervals.of(0, 1440)};
+    Assert.assertArrayEquals(expected, DayBitmap.freeRuns(new long[DayBitmap.WORDS], 1440));
+  }
+
+  @Test
+  public void matchesComplementOfMergedIntervals() {
+    Random random = new Random(11);
+    for (int round = 0; round < 1000; round++) {
+      long[] intervals = new long[random.nextInt(20)];
+      for (int i = 0; i < intervals.length; i++) {
+        int start = random.nextInt(1440);
+        intervals[i] = Intervals.of(start, start + random.nextInt(1441 - start));
+      }
+      long minLength = random.nextInt(120);
+
+      long[] merged = Intervals.merge(intervals, intervals.length);
+      long[] bits = new long[DayBitmap.WORDS];
+      DayBitmap.or(bits, DayBitmap.of(intervals));
+
+      Assert.assertArrayEquals(Intervals.complement(merged, 0, 1440, minLength),
+          DayBitmap.freeRuns(bits, minLength));
+    }
+  }
+}
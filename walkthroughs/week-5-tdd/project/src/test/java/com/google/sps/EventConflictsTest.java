@@ -0,0 +1,134 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventConflictsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  @Test
+  public void sharedOverlapIsReportedOnce() {
+    // Events 1 and 2 share both A and B, while event 3 only touches event 2 and so is fine.
+    Event first = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0930AM, false),
+        Arrays.asList(PERSON_A, PERSON_B));
+    Event second = new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_B, PERSON_A));
+    Event third = new Event("Event 3", TimeRange.fromStartEnd(TIME_1000AM, TIME_1000AM + 30, false),
+        Arrays.asList(PERSON_A));
+
+    List<EventConflict> actual = EventConflicts.find(Arrays.asList(third, second, first));
+    List<EventConflict> expected =
+        Arrays.asList(new EventConflict(first, second, Arrays.asList(PERSON_A, PERSON_B)));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void pairIsReportedByFirstSharedNameNotFirstId() {
+    // Interned in reverse name order, so the ids sort the other way round from the names.
+    String zed = "Conflicts Zed";
+    String amy = "Conflicts Amy";
+    Event first = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0930AM, false),
+        Arrays.asList(zed, amy, PERSON_C));
+    Event second = new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        Arrays.asList(amy, zed));
+
+    List<EventConflict> actual = EventConflicts.find(Arrays.asList(first, second));
+    List<EventConflict> expected =
+        Arrays.asList(new EventConflict(first, second, Arrays.asList(amy, zed)));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void overlapWithoutSharedAttendeeIsFine() {
+    Event first = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A));
+    Event second = new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+        Arrays.asList(PERSON_B));
+
+    Assert.assertEquals(Arrays.asList(), EventConflicts.find(Arrays.asList(first, second)));
+  }
+
+  @Test
+  public void matchesEveryPair() {
+    Random random = new Random(25);
+    String[] people = {PERSON_A, PERSON_B, PERSON_C};
+
+    for (int round = 0; round < 100; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 60; i++) {
+        // A coarse grid so that events often start or end together, and some take no time.
+        int start = random.nextInt(TimeRange.END_OF_DAY / 60) * 60;
+        int end = start + random.nextInt(4) * 60;
+        List<String> attendees = new ArrayList<>();
+        for (String person : people) {
+          if (random.nextInt(3) == 0) {
+            attendees.add(person);
+          }
+        }
+        events.add(new Event("Event " + i, TimeRange.fromStartEnd(start, end, false), attendees));
+      }
+
+      List<EventConflict> actual = EventConflicts.find(events);
+
+      Assert.assertEquals(everyPair(events), new HashSet<>(actual));
+      Assert.assertEquals(new HashSet<>(actual).size(), actual.size());
+    }
+  }
+
+  /** Compares every pair of events, the earlier one first. */
+  private static HashSet<EventConflict> everyPair(List<Event> events) {
+    HashSet<EventConflict> conflicts = new HashSet<>();
+    for (int i = 0; i < events.size(); i++) {
+      for (int j = i + 1; j < events.size(); j++) {
+        Event a = events.get(i);
+        Event b = events.get(j);
+        if (!a.getWhen().overlaps(b.getWhen())) {
+          continue;
+        }
+        List<String> shared = new ArrayList<>(a.getAttendees());
+        shared.retainAll(b.getAttendees());
+        Collections.sort(shared);
+        if (shared.isEmpty()) {
+          continue;
+        }
+        boolean aFirst = a.getWhen().start() < b.getWhen().start()
+            || (a.getWhen().start() == b.getWhen().start() && a.getWhen().duration() > 0);
+        conflicts.add(aFirst ? new EventConflict(a, b, shared) : new EventConflict(b, a, shared));
+      }
+    }
+    return conflicts;
+  }
+}
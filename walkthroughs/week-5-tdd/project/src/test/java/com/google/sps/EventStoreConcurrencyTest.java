@@ -0,0 +1,153 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventStoreConcurrencyTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final int CROWD = 2_000;
+
+  private static final Event MORNING = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), Arrays.asList(PERSON_A, PERSON_B));
+  private static final Event LATER = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(PERSON_A, PERSON_B));
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void inMemoryStateIsNeverTorn() throws InterruptedException {
+    assertNeverTorn(new InMemoryEventStore(Arrays.asList(MORNING)));
+  }
+
+  @Test
+  public void fileStateIsNeverTorn() throws IOException, InterruptedException {
+    try (FileEventStore store = FileEventStore.open(folder.getRoot().toPath())) {
+      store.add(MORNING);
+      assertNeverTorn(store);
+    }
+  }
+
+  @Test
+  public void inMemoryFreeTimeIsNeverStale() throws InterruptedException {
+    assertFreeTimeNeverStale(new InMemoryEventStore(Arrays.asList(crowded(MORNING))));
+  }
+
+  @Test
+  public void fileFreeTimeIsNeverStale() throws IOException, InterruptedException {
+    try (FileEventStore store = FileEventStore.open(folder.getRoot().toPath())) {
+      store.add(crowded(MORNING));
+      assertFreeTimeNeverStale(store);
+    }
+  }
+
+  /**
+   * Moves the one crowded event in {@code store} back and forth while reading, and checks that the
+   * free time the index of every state read gives agrees with the events of that state. The many
+   * attendees keep each change in progress for long enough that readers fill in free time halfway
+   * through it.
+   */
+  private static void assertFreeTimeNeverStale(EventStore store) throws InterruptedException {
+    Event morning = crowded(MORNING);
+    Event later = crowded(LATER);
+    List<String> attendees = new ArrayList<>(morning.getAttendees());
+    Thread writer = new Thread(() -> {
+      for (int i = 0; i < 200; i++) {
+        Assert.assertTrue(i % 2 == 0 ? store.replace(morning, later)
+                                     : store.replace(later, morning));
+      }
+    });
+    writer.start();
+    FindMeetingQuery query = new FindMeetingQuery();
+    int stale = 0;
+    int reads = 0;
+    while (writer.isAlive() || reads == 0) {
+      CalendarState state = store.getState();
+      MeetingRequest request = new MeetingRequest(
+          Arrays.asList(attendees.get(reads % attendees.size())), DURATION_30_MINUTES);
+      if (!new ArrayList<>(query.query(state.getEvents(), request))
+          .equals(new ArrayList<>(query.query(state.getIndex(), request)))) {
+        stale++;
+      }
+      reads++;
+    }
+    writer.join();
+
+    Assert.assertEquals(0, stale);
+  }
+
+  /** Returns {@code event} with {@link #CROWD} attendees instead of its own. */
+  private static Event crowded(Event event) {
+    List<String> attendees = new ArrayList<>();
+    for (int i = 0; i < CROWD; i++) {
+      attendees.add("Person " + i);
+    }
+    return new Event(event.getTitle(), event.getWhen(), attendees);
+  }
+
+  /**
+   * Moves the one event in {@code store} back and forth while reading, and checks that the events,
+   * the index and the events by time of every state read agree with each other.
+   */
+  private static void assertNeverTorn(EventStore store) throws InterruptedException {
+    Thread writer = new Thread(() -> {
+      for (int i = 0; i < 5_000; i++) {
+        Assert.assertTrue(i % 2 == 0 ? store.replace(MORNING, LATER)
+                                     : store.replace(LATER, MORNING));
+      }
+    });
+    writer.start();
+    boolean torn = false;
+    int reads = 0;
+    while (writer.isAlive() || reads == 0) {
+      CalendarState state = store.getState();
+      List<Event> events = new ArrayList<>(state.getEvents());
+      torn |= events.size() != 1;
+      if (events.size() == 1) {
+        List<TimeRange> when = Collections.singletonList(events.get(0).getWhen());
+        torn |= !when.equals(state.getIndex().getBusy(PERSON_A));
+        torn |= !when.equals(state.getIndex().getBusy(PERSON_B));
+        torn |= !events.equals(new ArrayList<>(state.getEvents(TimeRange.WHOLE_DAY)));
+        torn |= !events.equals(
+            state.getEvents(TimeRange.WHOLE_DAY, PERSON_B, null, 10).getEvents());
+      }
+      reads++;
+    }
+    writer.join();
+
+    Assert.assertFalse(torn);
+    Assert.assertEquals(Arrays.asList(MORNING), new ArrayList<>(store.getEvents()));
+  }
+}
@@ -0,0 +1,110 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventTimeIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void pagesCoverWindowOnceEvenWithSharedTimes() {
+    // Many events share a time, so a page can end in the middle of them.
+    Random random = new Random(19);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      int start = TIME_0900AM + 15 * random.nextInt(8);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, DURATION_30_MINUTES),
+          Arrays.asList(random.nextBoolean() ? PERSON_A : PERSON_B)));
+    }
+    EventTimeIndex index = new EventTimeIndex(events);
+    TimeRange window = TimeRange.fromStartEnd(TIME_0900AM + 20, TIME_1000AM, false);
+
+    for (String attendee : Arrays.asList(null, PERSON_A)) {
+      List<Event> expected = new ArrayList<>();
+      for (Event event : events) {
+        if (event.getWhen().overlaps(window)
+            && (attendee == null || event.getAttendees().contains(attendee))) {
+          expected.add(event);
+        }
+      }
+      expected.sort((a, b) -> Long.compare(a.getInterval(), b.getInterval()));
+
+      for (int limit = 1; limit <= expected.size() + 1; limit++) {
+        List<Event> actual = new ArrayList<>();
+        String cursor = null;
+        do {
+          EventPage page = index.page(window, attendee, cursor, limit);
+          Assert.assertTrue(page.getEvents().size() <= limit);
+          actual.addAll(page.getEvents());
+          cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // Events with the same time may come in any order, but each must come exactly once.
+        Assert.assertEquals(times(expected), times(actual));
+        Assert.assertEquals(sorted(expected), sorted(actual));
+      }
+    }
+  }
+
+  @Test
+  public void unknownAttendeeHasEmptyPage() {
+    EventTimeIndex index = new EventTimeIndex(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A))));
+
+    EventPage page = index.page(TimeRange.WHOLE_DAY, PERSON_B, null, 10);
+
+    Assert.assertEquals(Collections.emptyList(), page.getEvents());
+    Assert.assertNull(page.getNextCursor());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void badCursorIsRejected() {
+    new EventTimeIndex(Collections.emptyList()).page(TimeRange.WHOLE_DAY, null, "page 2", 10);
+  }
+
+  private static List<Long> times(List<Event> events) {
+    List<Long> times = new ArrayList<>();
+    for (Event event : events) {
+      times.add(event.getInterval());
+    }
+    return times;
+  }
+
+  private static List<String> sorted(List<Event> events) {
+    List<String> titles = new ArrayList<>();
+    for (Event event : events) {
+      titles.add(event.getTitle());
+    }
+    Collections.sort(titles);
+    return titles;
+  }
+}
@@ -0,0 +1,280 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class FileEventStoreTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final Event EVENT_1 = new Event("Event 1",
+      TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(9, 0), 30), Arrays.asList(PERSON_A));
+  private static final Event EVENT_2 = new Event("Event 2",
+      TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(10, 0), 60), Arrays.asList(PERSON_A));
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void logIsReplayedOnOpen() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      store.add(EVENT_1);
+      store.add(EVENT_2);
+      Assert.assertTrue(store.remove(EVENT_1));
+    }
+
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_2), new ArrayList<>(store.getEvents()));
+      Assert.assertEquals(Arrays.asList(EVENT_2.getWhen()), store.getIndex().getBusy(PERSON_A));
+    }
+  }
+
+  @Test
+  public void compactedStoreOpensFromSnapshot() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    List<Event> events = new ArrayList<>(Arrays.asList(Events.events));
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      for (Event event : events) {
+        store.add(event);
+      }
+      store.compact();
+      // Changes after the snapshot go to the new log.
+      Assert.assertTrue(store.remove(events.get(0)));
+      store.add(EVENT_1);
+    }
+    events.remove(0);
+    events.add(EVENT_1);
+
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      Assert.assertEquals(events, new ArrayList<>(store.getEvents()));
+      AttendeeIndex expected = new AttendeeIndex(events);
+      for (String person : Arrays.asList("Emma", "Liam", PERSON_A)) {
+        Assert.assertEquals(expected.getBusy(person), store.getIndex().getBusy(person));
+      }
+    }
+  }
+
+  @Test
+  public void longLogIsCompacted() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    List<Event> events = Arrays.asList(Events.events);
+    try (FileEventStore store = FileEventStore.open(directory, 100)) {
+      for (Event event : events) {
+        store.add(event);
+        Assert.assertTrue(Files.size(directory.resolve("events.log")) <= 100);
+      }
+    }
+
+    Assert.assertTrue(Files.exists(directory.resolve("events.snapshot")));
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      Assert.assertEquals(events, new ArrayList<>(store.getEvents()));
+    }
+  }
+
+  @Test
+  public void longLogIsCompactedOnOpen() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    List<Event> events = Arrays.asList(Events.events);
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      for (Event event : events) {
+        store.add(event);
+      }
+    }
+    Assert.assertTrue(Files.size(directory.resolve("events.log")) > 100);
+
+    try (FileEventStore store = FileEventStore.open(directory, 100)) {
+      Assert.assertEquals(events, new ArrayList<>(store.getEvents()));
+    }
+    // Only the header is left.
+    Assert.assertEquals(12, Files.size(directory.resolve("events.log")));
+  }
+
+  @Test
+  public void replaceIsReplayedOnOpen() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      store.add(EVENT_1);
+      Assert.assertTrue(store.replace(EVENT_1, EVENT_2));
+      Assert.assertFalse(store.replace(EVENT_1, EVENT_2));
+    }
+
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_2), new ArrayList<>(store.getEvents()));
+      Assert.assertEquals(Arrays.asList(EVENT_2.getWhen()), store.getIndex().getBusy(PERSON_A));
+    }
+  }
+
+  @Test
+  public void missingEventsDoNotInternNames() throws IOException {
+    // Events from clients, as EventsServlet reads them.
+    String stranger = "Person only ever removed";
+    Event missing = Event.unstored("Missing", EVENT_1.getWhen(), Arrays.asList(PERSON_A, stranger));
+    Event replacement = Event.unstored("Replacement", EVENT_2.getWhen(), Arrays.asList(stranger));
+    try (FileEventStore store = FileEventStore.open(folder.getRoot().toPath())) {
+      store.add(EVENT_1);
+      Assert.assertFalse(store.remove(missing));
+      Assert.assertFalse(store.replace(missing, replacement));
+      Assert.assertEquals(-1, AttendeeIds.find(stranger));
+
+      // Once stored, the names are interned, and the event built before still matches.
+      store.add(Event.unstored("Missing", EVENT_1.getWhen(), Arrays.asList(stranger, PERSON_A)));
+      Assert.assertTrue(AttendeeIds.find(stranger) >= 0);
+      Assert.assertTrue(store.remove(missing));
+    }
+  }
+
+  @Test
+  public void windowFollowsChanges() throws IOException {
+    try (FileEventStore store = FileEventStore.open(folder.getRoot().toPath())) {
+      store.add(EVENT_1);
+      Assert.assertEquals(Arrays.asList(EVENT_1),
+          new ArrayList<>(store.getEvents(EVENT_1.getWhen())));
+
+      // The index built by the first read is kept up to date from then on.
+      store.add(EVENT_2);
+      Assert.assertTrue(store.remove(EVENT_1));
+      Assert.assertEquals(Arrays.asList(EVENT_2),
+          new ArrayList<>(store.getEvents(TimeRange.WHOLE_DAY)));
+      Assert.assertEquals(Arrays.asList(), new ArrayList<>(store.getEvents(EVENT_1.getWhen())));
+    }
+  }
+
+  @Test
+  public void recordCutShortIsDropped() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      store.add(EVENT_1);
+      store.add(EVENT_2);
+    }
+    try (FileChannel log = FileChannel.open(
+        directory.resolve("events.log"), StandardOpenOption.WRITE)) {
+      log.truncate(log.size() - 3);
+    }
+
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1), new ArrayList<>(store.getEvents()));
+      // The log keeps working after the dropped record.
+      store.add(EVENT_2);
+    }
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1, EVENT_2), new ArrayList<>(store.getEvents()));
+    }
+  }
+
+  @Test
+  public void hugeAttendeeCountIsTakenForCutShortRecord() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      store.add(EVENT_1);
+      store.add(EVENT_2);
+    }
+    // The count of EVENT_2 sits just before its one attendee at the end of the log.
+    int attendeeBytes = 2 + PERSON_A.length();
+    try (FileChannel log = FileChannel.open(
+        directory.resolve("events.log"), StandardOpenOption.WRITE)) {
+      log.write(ByteBuffer.wrap(new byte[] {0x7f, -1, -1, -1}), log.size() - attendeeBytes - 4);
+    }
+
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      Assert.assertEquals(Arrays.asList(EVENT_1), new ArrayList<>(store.getEvents()));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void unknownRecordTypeIsRejected() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (FileEventStore store = FileEventStore.open(directory)) {
+      store.add(EVENT_1);
+    }
+    // The op byte of the first record follows the 12-byte header.
+    try (FileChannel log = FileChannel.open(
+        directory.resolve("events.log"), StandardOpenOption.WRITE)) {
+      log.write(ByteBuffer.wrap(new byte[] {9}), 12);
+    }
+
+    FileEventStore.open(directory).close();
+  }
+
+  @Test
+  public void snapshotEventsAreFoundByTime() throws IOException {
+    List<Event> events = sharingTimes();
+    try (FileEventStore store = FileEventStore.open(folder.getRoot().toPath())) {
+      for (Event event : events) {
+        store.add(event);
+      }
+      store.compact();
+
+      Assert.assertFalse(store.remove(EVENT_1));
+      Collections.shuffle(events, new Random(13));
+      for (Event event : events) {
+        Assert.assertTrue(store.remove(event));
+        Assert.assertFalse(store.remove(event));
+      }
+      Assert.assertEquals(Arrays.asList(), new ArrayList<>(store.getEvents()));
+    }
+  }
+
+  @Test
+  public void snapshotWithoutIntervalTableStillOpens() throws IOException {
+    List<Event> events = sharingTimes();
+    Path file = folder.getRoot().toPath().resolve("old.snapshot");
+    EventSnapshot.write(file, events, 1);
+    // Turn it into a version 1 file by dropping the table at the end.
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 1}), 4);
+      channel.truncate(channel.size() - 4 * events.size());
+    }
+
+    EventSnapshot snapshot = EventSnapshot.open(file);
+    BitSet found = new BitSet();
+    for (Event event : events) {
+      int i = snapshot.find(event, found);
+      Assert.assertEquals(event, snapshot.event(i));
+      found.set(i);
+    }
+    Assert.assertEquals(-1, snapshot.find(EVENT_1, new BitSet()));
+  }
+
+  /** Returns events spread over only a few times, in no particular order. */
+  private static List<Event> sharingTimes() {
+    Random random = new Random(12);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      events.add(new Event("Event " + i,
+          TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(11 + random.nextInt(4), 0), 30),
+          Arrays.asList(PERSON_A)));
+    }
+    return events;
+  }
+}
@@ -0,0 +1,373 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Checks every way of answering a meeting request against {@link MinuteOracle} over random
+ * calendars. Each round has its own seed, which failures report so that they can be replayed.
+ */
+@RunWith(JUnit4.class)
+public final class FindMeetingQueryDifferentialTest {
+  private static final int ROUNDS = 300;
+
+  // Each window round looks at up to three days minute by minute, so fewer of them are run.
+  private static final int WINDOW_ROUNDS = 100;
+
+  private static final List<String> EQUIPMENT = Arrays.asList("projector", "whiteboard", "phone");
+
+  private static final List<ZoneId> ZONES = Arrays.asList(ZoneOffset.UTC,
+      ZoneId.of("America/New_York"), ZoneId.of("Asia/Kolkata"));
+
+  // The Saturday before clocks in New York went forward, so windows often cross the change.
+  private static final LocalDate FIRST_DAY = LocalDate.of(2020, 3, 7);
+
+  /** Something that answers a request the way {@link MinuteOracle#query} does. */
+  private interface Scheduler {
+    Collection<TimeRange> answer(List<Event> events, MeetingRequest request);
+  }
+
+  private static final FindMeetingQuery QUERY = new FindMeetingQuery();
+
+  private static final List<Scheduler> MANDATORY = Arrays.asList(
+      (events, request) -> QUERY.query(events, request),
+      (events, request) -> QUERY.query(new AttendeeIndex(events), request),
+      (events, request) -> QUERY.queryWithBitmaps(new AttendeeIndex(events), request),
+      (events, request) ->
+          QUERY.query(new InMemoryEventStore(events), request, TimeRange.WHOLE_DAY));
+
+  private static final List<Scheduler> OPTIONAL = Arrays.asList(
+      (events, request) -> QUERY.queryWithOptionalAttendees(events, request),
+      (events, request) -> QUERY.queryWithOptionalAttendees(new AttendeeIndex(events), request),
+      (events, request) -> new QueryCache(new AttendeeIndex(events), 1)
+          .queryWithOptionalAttendees(request),
+      (events, request) -> QUERY.queryAll(events, Collections.singletonList(request)).get(0));
+
+  @Test
+  public void mandatoryAttendeesMatchOracle() {
+    for (int round = 0; round < ROUNDS; round++) {
+      Random random = new Random(round);
+      List<Event> events = calendar(random);
+      MeetingRequest request = request(random, false);
+      List<TimeRange> expected = new MinuteOracle(events, request).query();
+
+      for (int i = 0; i < MANDATORY.size(); i++) {
+        Assert.assertEquals("Scheduler " + i + " in round " + round, expected,
+            new ArrayList<>(MANDATORY.get(i).answer(events, request)));
+      }
+    }
+  }
+
+  @Test
+  public void optionalAttendeesMatchOracle() {
+    for (int round = 0; round < ROUNDS; round++) {
+      Random random = new Random(round);
+      List<Event> events = calendar(random);
+      MeetingRequest request = request(random, true);
+      List<TimeRange> expected = new MinuteOracle(events, request).queryWithOptionalAttendees();
+
+      for (int i = 0; i < OPTIONAL.size(); i++) {
+        Assert.assertEquals("Scheduler " + i + " in round " + round, expected,
+            new ArrayList<>(OPTIONAL.get(i).answer(events, request)));
+      }
+    }
+  }
+
+  @Test
+  public void minimumOptionalMatchesOracle() {
+    for (int round = 0; round < ROUNDS; round++) {
+      Random random = new Random(round);
+      List<Event> events = calendar(random);
+      MeetingRequest request = request(random, true);
+      int minOptional = random.nextInt(request.getOptionalAttendees().size() + 1);
+
+      Assert.assertEquals("Round " + round,
+          new MinuteOracle(events, request).queryWithMinimumOptional(minOptional),
+          QUERY.queryWithMinimumOptional(new AttendeeIndex(events), request, minOptional));
+    }
+  }
+
+  @Test
+  public void topSlotMatchesOracle() {
+    for (int round = 0; round < ROUNDS; round++) {
+      Random random = new Random(round);
+      List<Event> events = calendar(random);
+      MeetingRequest request = request(random, true);
+      TimeRange preferredHours = preferredHours(random);
+      List<TimeRange> expected = new MinuteOracle(events, request).queryBest(preferredHours);
+
+      Assert.assertEquals("Round " + round, expected,
+          QUERY.queryTopK(events, request, 1, preferredHours));
+      Assert.assertEquals("Round " + round, expected,
+          QUERY.queryTopK(new AttendeeIndex(events), request, 1, preferredHours));
+      Assert.assertEquals("Round " + round, expected,
+          new QueryCache(new AttendeeIndex(events), 1).queryTopK(request, 1, preferredHours));
+    }
+  }
+
+  @Test
+  public void topSlotsAreValidAndRanked() {
+    for (int round = 0; round < ROUNDS; round++) {
+      Random random = new Random(round);
+      List<Event> events = calendar(random);
+      MeetingRequest request = request(random, true);
+      TimeRange preferredHours = preferredHours(random);
+      int k = 2 + random.nextInt(8);
+      MinuteOracle oracle = new MinuteOracle(events, request);
+      List<TimeRange> best = oracle.queryBest(preferredHours);
+      Comparator<TimeRange> order = oracle.bestFirst(preferredHours);
+
+      for (List<TimeRange> slots : Arrays.asList(
+          QUERY.queryTopK(events, request, k, preferredHours),
+          QUERY.queryTopK(new AttendeeIndex(events), request, k, preferredHours))) {
+        String message = "Round " + round + ": " + slots;
+        Assert.assertTrue(message, slots.size() <= k);
+        Assert.assertEquals(message, best, slots.subList(0, Math.min(1, slots.size())));
+        Assert.assertEquals(message, slots.size(), new HashSet<>(slots).size());
+        for (int i = 0; i < slots.size(); i++) {
+          Assert.assertTrue(message, oracle.isValidSlot(slots.get(i)));
+          if (i > 0) {
+            Assert.assertTrue(message, order.compare(slots.get(i - 1), slots.get(i)) <= 0);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void roomSlotsMatchOracle() {
+    for (int round = 0; round < ROUNDS; round++) {
+      Random random = new Random(round);
+      List<Event> events = calendar(random);
+      MeetingRequest request = request(random, false);
+      request.requireRoom(random.nextInt(15), pick(random, EQUIPMENT));
+
+      List<Room> rooms = new ArrayList<>();
+      Map<String, List<TimeRange>> bookings = new HashMap<>();
+      for (int i = random.nextInt(6); i > 0; i--) {
+        Room room = new Room("Room " + i, random.nextInt(20), pick(random, EQUIPMENT));
+        rooms.add(room);
+        bookings.put(room.getName(), new ArrayList<>());
+        for (int j = random.nextInt(10); j > 0; j--) {
+          int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+          int end = Math.min(start + 1 + random.nextInt(180), TimeRange.WHOLE_DAY.end());
+          bookings.get(room.getName()).add(TimeRange.fromStartEnd(start, end, false));
+        }
+      }
+      RoomIndex roomIndex = new RoomIndex(rooms);
+      for (Map.Entry<String, List<TimeRange>> entry : bookings.entrySet()) {
+        for (TimeRange booking : entry.getValue()) {
+          roomIndex.book(entry.getKey(), booking);
+        }
+      }
+
+      Assert.assertEquals("Round " + round,
+          new MinuteOracle(events, request).queryWithRoom(rooms, bookings),
+          QUERY.queryWithRoom(new AttendeeIndex(events), roomIndex, request));
+    }
+  }
+
+  @Test
+  public void windowWithRecurrencesMatchesOracle() {
+    for (int round = 0; round < WINDOW_ROUNDS; round++) {
+      Random random = new Random(round);
+      int firstMinute = EpochTimeRange.toEpochMinute(
+          FIRST_DAY.atStartOfDay(ZoneOffset.UTC).toInstant()) + random.nextInt(24 * 60);
+      EpochTimeRange window = EpochTimeRange.fromStartEnd(
+          firstMinute, firstMinute + 1 + random.nextInt(3 * 24 * 60));
+      MeetingRequest request = request(random, true);
+
+      // The oracle sees each occurrence as an event of its own, worked out here date by date.
+      AttendeeIndex index = new AttendeeIndex();
+      RecurringEventIndex recurring = new RecurringEventIndex();
+      List<DatedEvent> busy = new ArrayList<>();
+      for (int i = random.nextInt(100); i > 0; i--) {
+        int start = window.start() - 24 * 60 + random.nextInt(window.duration() + 2 * 24 * 60);
+        DatedEvent event = new DatedEvent("Event " + i,
+            EpochTimeRange.fromStartEnd(start, start + 1 + random.nextInt(240)),
+            pick(random, people(12)));
+        index.add(event);
+        busy.add(event);
+      }
+      for (int i = random.nextInt(6); i > 0; i--) {
+        ZoneId zone = ZONES.get(random.nextInt(ZONES.size()));
+        LocalDate firstDate = FIRST_DAY.plusDays(random.nextInt(5) - 1);
+        LocalTime start = LocalTime.of(random.nextInt(24), 15 * random.nextInt(4));
+        int duration = 15 + random.nextInt(180);
+        Recurrence recurrence = random.nextBoolean()
+            ? Recurrence.daily() : Recurrence.weekly(FIRST_DAY.plusDays(i).getDayOfWeek());
+        if (random.nextBoolean()) {
+          recurrence = recurrence.except(FIRST_DAY.plusDays(random.nextInt(4)));
+        }
+        if (random.nextBoolean()) {
+          recurrence = recurrence.until(FIRST_DAY.plusDays(random.nextInt(4)));
+        }
+        List<String> attendees = pick(random, people(12));
+        recurring.add(new RecurringEvent(
+            "Series " + i, zone, firstDate, start, duration, recurrence, attendees));
+
+        for (LocalDate date = firstDate; date.isBefore(FIRST_DAY.plusDays(6));
+            date = date.plusDays(1)) {
+          if (recurrence.occursOn(date)) {
+            int from = EpochTimeRange.toEpochMinute(
+                ZonedDateTime.of(date, start, zone).toInstant());
+            busy.add(new DatedEvent("Series " + i,
+                EpochTimeRange.fromStartEnd(from, from + duration), attendees));
+          }
+        }
+      }
+
+      Assert.assertEquals("Round " + round,
+          new MinuteOracle(window, busy, request).queryWindow(),
+          QUERY.queryWindow(index, recurring, request, window, Collections.emptyMap()));
+    }
+  }
+
+  @Test
+  public void largeGroupsMatchOracle() {
+    for (int round = 0; round < ROUNDS / 10; round++) {
+      Random random = new Random(round);
+      List<String> people = people(120);
+      List<Event> events = new ArrayList<>();
+      for (int i = random.nextInt(150); i > 0; i--) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int end = Math.min(start + 1 + random.nextInt(30), TimeRange.WHOLE_DAY.end());
+        events.add(new Event("Event " + i, TimeRange.fromStartEnd(start, end, false),
+            Arrays.asList(people.get(random.nextInt(people.size())))));
+      }
+
+      Collections.shuffle(people, random);
+      int mandatory = TournamentMerge.PARALLEL_THRESHOLD + random.nextInt(40);
+      MeetingRequest request =
+          new MeetingRequest(people.subList(0, mandatory), 1 + random.nextInt(30));
+      for (String person : people.subList(mandatory, mandatory + random.nextInt(7))) {
+        request.addOptionalAttendee(person);
+      }
+      MinuteOracle oracle = new MinuteOracle(events, request);
+
+      for (int i = 0; i < MANDATORY.size(); i++) {
+        Assert.assertEquals("Scheduler " + i + " in round " + round, oracle.query(),
+            new ArrayList<>(MANDATORY.get(i).answer(events, request)));
+      }
+      for (int i = 0; i < OPTIONAL.size(); i++) {
+        Assert.assertEquals("Scheduler " + i + " in round " + round,
+            oracle.queryWithOptionalAttendees(),
+            new ArrayList<>(OPTIONAL.get(i).answer(events, request)));
+      }
+    }
+  }
+
+  /**
+   * Returns a calendar of up to 200 events among a handful of people, so that requests often hit
+   * the interesting cases: touching and nested events, events shared by several attendees, gaps
+   * exactly as long as the meeting and days with no room at all.
+   */
+  private static List<Event> calendar(Random random) {
+    int people = 2 + random.nextInt(10);
+    int count = random.nextInt(200);
+    // Coarse grids make events touch and line up far more often than single minutes would.
+    int grid = new int[] {1, 5, 15, 30}[random.nextInt(4)];
+    int longest = 1 + random.nextInt(240);
+
+    List<Event> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration() / grid) * grid;
+      int length = (1 + random.nextInt((longest + grid - 1) / grid)) * grid;
+      int end = Math.min(start + length, TimeRange.WHOLE_DAY.end());
+      List<String> attendees = new ArrayList<>();
+      for (int j = 1 + random.nextInt(3); j > 0; j--) {
+        String person = person(random.nextInt(people));
+        if (!attendees.contains(person)) {
+          attendees.add(person);
+        }
+      }
+      events.add(new Event("Event " + i, TimeRange.fromStartEnd(start, end, false), attendees));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a request among the people of {@link #calendar}, some of whom may have no events at
+   * all. Mandatory attendees are left out now and then so that optional ones decide on their own.
+   */
+  private static MeetingRequest request(Random random, boolean withOptional) {
+    List<String> people = people(12);
+    Collections.shuffle(people, random);
+
+    int mandatory = random.nextInt(4);
+    int duration = random.nextInt(8) == 0
+        ? TimeRange.WHOLE_DAY.duration() - random.nextInt(2)
+        : 1 + random.nextInt(random.nextBoolean() ? 30 : 180);
+    MeetingRequest request = new MeetingRequest(people.subList(0, mandatory), duration);
+    if (withOptional) {
+      for (String person : people.subList(mandatory, mandatory + random.nextInt(7))) {
+        request.addOptionalAttendee(person);
+      }
+    }
+    return request;
+  }
+
+  /** Returns preferred hours that are now and then the whole day or too short for any meeting. */
+  private static TimeRange preferredHours(Random random) {
+    if (random.nextInt(4) == 0) {
+      return TimeRange.WHOLE_DAY;
+    }
+    int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+    return TimeRange.fromStartEnd(
+        start, start + random.nextInt(TimeRange.WHOLE_DAY.end() - start + 1), false);
+  }
+
+  /** Returns a random part of {@code choices}, in order. */
+  private static List<String> pick(Random random, List<String> choices) {
+    List<String> result = new ArrayList<>();
+    for (String choice : choices) {
+      if (random.nextBoolean()) {
+        result.add(choice);
+      }
+    }
+    return result;
+  }
+
+  private static List<String> people(int count) {
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      people.add(person(i));
+    }
+    return people;
+  }
+
+  private static String person(int i) {
+    return "Person " + (char) ('A' + i);
+  }
+}
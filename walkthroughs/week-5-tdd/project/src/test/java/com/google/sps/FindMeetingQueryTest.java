@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -34,12 +35,15 @@ public final class FindMeetingQueryTest {
   // Some people that we can use in our tests.
   private static final String PERSON_A = "Person A";
   private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
 
   // All dates are the first day of the year 2020.
   private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
   private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
   private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
   private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_0845AM = TimeRange.getTimeInMinutes(8, 45);
   private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
   private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 00);
 
@@ -237,6 +241,23 @@ public final class FindMeetingQueryTest {
     Assert.assertEquals(expected, actual);
   }
 
+  @Test
+  public void eventWithSomeOtherAttendeesStillBlocks() {
+    // The event is shared by someone in the request and someone who is not. Only one attendee in
+    // common is needed for the event to block the time.
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
   @Test
   public void noConflicts() {
     MeetingRequest request =
@@ -270,5 +291,372 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void optionalAttendeeWithAllDayEventIsIgnored() {
+    // Based on everyAttendeeIsConsidered, C is busy all day so the same options come back.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeIsConsideredWhenPossible() {
+    // Events  :       |--A--|--C--|--B--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|                 |--2--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeIgnoredWhenNotEnoughRoom() {
+    // Based on justEnoughRoom, B's event would leave no room for the meeting.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0830AM, TIME_0845AM, false),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void onlyOptionalAttendeesWithGaps() {
+    // Events  :       |--A--|     |--B--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void onlyOptionalAttendeesWithoutGaps() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected = Arrays.asList();
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void mostOptionalAttendeesAreChosen() {
+    // Nobody fits all three optional people for an hour, but every window below has two of them.
+    //
+    // Events  : |--B--|  |-C-|  |---------B---------|
+    //                                 |------D------|
+    // Day     : |-----------------------------------|
+    // Options : |--1-----|
+    //                 |--2---|
+    //                        |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 4", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_D)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void queryAllMatchesSingleQueries() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    List<MeetingRequest> requests = new ArrayList<>();
+    requests.add(new MeetingRequest(Arrays.asList("Emma", "Liam"), DURATION_30_MINUTES));
+    requests.add(new MeetingRequest(Arrays.asList("Isabella"), DURATION_1_HOUR));
+    requests.add(new MeetingRequest(NO_ATTENDEES, DURATION_2_HOUR));
+    MeetingRequest withOptional = new MeetingRequest(Arrays.asList("Ava"), DURATION_30_MINUTES);
+    withOptional.addOptionalAttendee("Amelia");
+    withOptional.addOptionalAttendee("Logan");
+    requests.add(withOptional);
+
+    List<Collection<TimeRange>> actual = query.queryAll(events, requests);
+    List<Collection<TimeRange>> expected = new ArrayList<>();
+    for (MeetingRequest request : requests) {
+      expected.add(query.queryWithOptionalAttendees(events, request));
+    }
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void topKPrefersFewerOptionalConflicts() {
+    // Events  : |--B--|     |---------B---------|
+    // Day     : |-----------------------------------|
+    // Options :       |--1--|
+    //           |--2--|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<TimeRange> actual = query.queryTopK(events, request, 2, TimeRange.WHOLE_DAY);
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES),
+            TimeRange.fromStartDuration(TimeRange.START_OF_DAY, DURATION_60_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void topKPrefersPreferredHours() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual = query.queryTopK(NO_EVENTS, request, 2,
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false));
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            TimeRange.fromStartEnd(TIME_1100AM - DURATION_30_MINUTES, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void topKBestSlotMatchesEveryMinute() {
+    Random random = new Random(10);
+    String[] people = {PERSON_A, PERSON_B, PERSON_C, PERSON_D};
+    TimeRange preferred = TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false);
+
+    for (int round = 0; round < 200; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 12; i++) {
+        int start = random.nextInt(TimeRange.END_OF_DAY);
+        int end = start + 1 + random.nextInt(Math.min(180, TimeRange.END_OF_DAY - start));
+        events.add(new Event("Event " + i, TimeRange.fromStartEnd(start, end, false),
+            Arrays.asList(people[random.nextInt(people.length)])));
+      }
+      MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+      request.addOptionalAttendee(PERSON_B);
+      request.addOptionalAttendee(PERSON_C);
+      request.addOptionalAttendee(PERSON_D);
+
+      List<TimeRange> actual = query.queryTopK(events, request, 1, preferred);
+
+      Assert.assertEquals(bestByMinute(events, request, preferred), actual);
+    }
+  }
+
+  @Test
+  public void largeGroupMergedInParallelMatchesScan() {
+    Random random = new Random(14);
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      people.add("Person " + i);
+    }
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      int start = random.nextInt(TimeRange.END_OF_DAY);
+      int end = start + 1 + random.nextInt(Math.min(10, TimeRange.END_OF_DAY - start));
+      events.add(new Event("Event " + i, TimeRange.fromStartEnd(start, end, false),
+          Arrays.asList(people.get(random.nextInt(people.size())))));
+    }
+    MeetingRequest request = new MeetingRequest(people.subList(0, 250), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual =
+        query.queryWithOptionalAttendees(new AttendeeIndex(events), request);
+    Collection<TimeRange> expected = query.query(events, request);
+
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void windowOnlyLooksAtOverlappingEvents() {
+    EventStore store = new InMemoryEventStore(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0930AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_B))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual =
+        query.query(store, request, TimeRange.fromStartEnd(TIME_0845AM, TIME_1100AM, false));
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void minimumOptionalCountsFreeAttendeesPerSlot() {
+    // Optional B can only make slots before 9:00 or after 10:00 and optional C before 9:30 or
+    // after 11:00, so in between at most one of them comes.
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0930AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_C))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<AttendanceSlot> actual = query.queryWithMinimumOptional(index, request, 1);
+    List<AttendanceSlot> expected = Arrays.asList(
+        new AttendanceSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false), 2),
+        new AttendanceSlot(TimeRange.fromStartEnd(TIME_0830AM + 1, TIME_0930AM, false), 1),
+        new AttendanceSlot(
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM - 1 + DURATION_30_MINUTES, false), 1),
+        new AttendanceSlot(TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true), 2));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void minimumOptionalMatchesEveryMinute() {
+    Random random = new Random(22);
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      people.add("Person " + i);
+    }
+
+    for (int round = 0; round < 100; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 40; i++) {
+        int start = random.nextInt(TimeRange.END_OF_DAY);
+        int end = start + 1 + random.nextInt(Math.min(120, TimeRange.END_OF_DAY - start));
+        events.add(new Event("Event " + i, TimeRange.fromStartEnd(start, end, false),
+            Arrays.asList(people.get(random.nextInt(people.size())))));
+      }
+      MeetingRequest request =
+          new MeetingRequest(people.subList(0, 2), 1 + random.nextInt(DURATION_90_MINUTES));
+      for (String person : people.subList(2, people.size())) {
+        request.addOptionalAttendee(person);
+      }
+      int minOptional = random.nextInt(6);
+
+      List<AttendanceSlot> actual =
+          query.queryWithMinimumOptional(new AttendeeIndex(events), request, minOptional);
+
+      Assert.assertEquals(
+          new MinuteOracle(events, request).queryWithMinimumOptional(minOptional), actual);
+    }
+  }
+
+  /** Tries every start minute of the day and keeps the best slot. */
+  private static List<TimeRange> bestByMinute(
+      Collection<Event> events, MeetingRequest request, TimeRange preferred) {
+    int duration = (int) request.getDuration();
+    TimeRange best = null;
+    int[] bestScore = null;
+    for (int start = 0; start + duration <= TimeRange.END_OF_DAY + 1; start++) {
+      TimeRange slot = TimeRange.fromStartDuration(start, duration);
+      int busy = 0;
+      boolean blocked = false;
+      for (String person : request.getAttendees()) {
+        blocked |= isBusy(events, person, slot);
+      }
+      for (String person : request.getOptionalAttendees()) {
+        busy += isBusy(events, person, slot) ? 1 : 0;
+      }
+      int outside = 0;
+      for (int minute = start; minute < start + duration; minute++) {
+        outside += preferred.contains(minute) ? 0 : 1;
+      }
+
+      int[] score = {busy, outside};
+      if (!blocked && (bestScore == null || score[0] < bestScore[0]
+          || (score[0] == bestScore[0] && score[1] < bestScore[1]))) {
+        best = slot;
+        bestScore = score;
+      }
+    }
+    return best == null ? Arrays.asList() : Arrays.asList(best);
+  }
+
+  private static boolean isBusy(Collection<Event> events, String person, TimeRange slot) {
+    for (Event event : events) {
+      if (event.getAttendees().contains(person) && event.getWhen().overlaps(slot)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
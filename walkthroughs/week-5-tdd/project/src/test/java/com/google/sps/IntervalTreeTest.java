@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalTreeTest {
+  @Test
+  public void overlapStabbingAndContainment() {
+    long[] intervals = {Intervals.of(0, 30), Intervals.of(10, 20), Intervals.of(15, 60),
+        Intervals.of(40, 50)};
+    IntervalTree<String> tree =
+        IntervalTree.fromSorted(intervals, Arrays.asList("A", "B", "C", "D"));
+
+    Assert.assertEquals(Arrays.asList("A", "B", "C"), tree.overlapping(12, 16));
+    Assert.assertEquals(Arrays.asList("C", "D"), tree.overlapping(30, 45));
+    Assert.assertEquals(Arrays.asList("C"), tree.stabbing(55));
+    Assert.assertEquals(Collections.emptyList(), tree.stabbing(60));
+    Assert.assertEquals(Arrays.asList("B", "C", "D"), tree.containedIn(10, 60));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unsortedInputIsRejected() {
+    IntervalTree.fromSorted(
+        new long[] {Intervals.of(10, 20), Intervals.of(0, 5)}, Arrays.asList("A", "B"));
+  }
+
+  @Test
+  public void matchesScanAfterRandomChanges() {
+    Random random = new Random(18);
+    List<Long> keys = new ArrayList<>();
+    long[] sorted = new long[200];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = randomInterval(random);
+    }
+    Arrays.sort(sorted);
+    List<Long> values = new ArrayList<>();
+    for (long interval : sorted) {
+      keys.add(interval);
+      values.add(interval);
+    }
+    IntervalTree<Long> tree = IntervalTree.fromSorted(sorted, values);
+
+    for (int round = 0; round < 2000; round++) {
+      if (random.nextBoolean() && !keys.isEmpty()) {
+        Long key = keys.remove(random.nextInt(keys.size()));
+        Assert.assertTrue(tree.remove(key, key));
+      } else {
+        long key = randomInterval(random);
+        keys.add(key);
+        tree.add(key, key);
+      }
+      Assert.assertFalse(tree.remove(Intervals.of(2000, 2001), 0L));
+      Assert.assertEquals(keys.size(), tree.size());
+
+      int from = random.nextInt(1440);
+      int to = from + random.nextInt(1441 - from);
+      List<Long> overlapping = new ArrayList<>();
+      List<Long> contained = new ArrayList<>();
+      for (long key : keys) {
+        if (Intervals.start(key) < to && Intervals.end(key) > from) {
+          overlapping.add(key);
+        }
+        if (Intervals.start(key) >= from && Intervals.end(key) <= to && from < to) {
+          contained.add(key);
+        }
+      }
+      Collections.sort(overlapping);
+      Collections.sort(contained);
+      Assert.assertEquals(overlapping, tree.overlapping(from, to));
+      Assert.assertEquals(contained, tree.containedIn(from, to));
+    }
+  }
+
+  @Test
+  public void copyDoesNotSeeLaterChanges() {
+    IntervalTree<String> tree = new IntervalTree<>();
+    for (int start = 0; start < 100; start += 10) {
+      tree.add(Intervals.of(start, start + 10), "Event " + start);
+    }
+    IntervalTree<String> copy = tree.copy();
+
+    tree.add(Intervals.of(5, 6), "Added");
+    Assert.assertTrue(tree.remove(Intervals.of(0, 10), "Event 0"));
+    copy.add(Intervals.of(7, 8), "Added to copy");
+
+    Assert.assertEquals(Arrays.asList("Added", "Event 10"), tree.overlapping(0, 15));
+    Assert.assertEquals(Arrays.asList("Event 0", "Added to copy", "Event 10"),
+        copy.overlapping(0, 15));
+    Assert.assertEquals(10, tree.size());
+    Assert.assertEquals(11, copy.size());
+  }
+
+  private static long randomInterval(Random random) {
+    int start = random.nextInt(1440);
+    return Intervals.of(start, start + 1 + random.nextInt(Math.min(180, 1440 - start)));
+  }
+}
@@ -0,0 +1,62 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalsTest {
+  @Test
+  public void packingRoundTrips() {
+    long interval = Intervals.of(100, 150);
+
+    Assert.assertEquals(100, Intervals.start(interval));
+    Assert.assertEquals(150, Intervals.end(interval));
+    Assert.assertEquals(50, Intervals.length(interval));
+    Assert.assertEquals(TimeRange.fromStartDuration(100, 50), Intervals.toTimeRange(interval));
+  }
+
+  @Test
+  public void mergeCombinesTouchingAndOverlapping() {
+    long[] intervals = {
+        Intervals.of(300, 400), Intervals.of(100, 200), Intervals.of(150, 250),
+        Intervals.of(250, 260), Intervals.of(500, 500)};
+
+    long[] expected = {Intervals.of(100, 260), Intervals.of(300, 400)};
+    Assert.assertArrayEquals(expected, Intervals.merge(intervals, intervals.length));
+  }
+
+  @Test
+  public void unionAndIntersect() {
+    long[] a = {Intervals.of(100, 200), Intervals.of(300, 400)};
+    long[] b = {Intervals.of(150, 350)};
+
+    Assert.assertArrayEquals(new long[] {Intervals.of(100, 400)}, Intervals.union(a, b));
+    Assert.assertArrayEquals(new long[] {Intervals.of(150, 200), Intervals.of(300, 350)},
+        Intervals.intersect(a, b));
+  }
+
+  @Test
+  public void complementKeepsLongEnoughGaps() {
+    long[] busy = {Intervals.of(100, 200), Intervals.of(230, 400)};
+
+    long[] expected = {Intervals.of(0, 100), Intervals.of(400, 1440)};
+    Assert.assertArrayEquals(expected, Intervals.complement(busy, 0, 1440, 60));
+  }
+}
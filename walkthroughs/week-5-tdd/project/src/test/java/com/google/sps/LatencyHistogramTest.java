@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LatencyHistogramTest {
+  @Test
+  public void bucketsCoverEveryValueInOrder() {
+    long previous = -1;
+    for (int bucket = 0; LatencyHistogram.highestInBucket(bucket) != Long.MAX_VALUE; bucket++) {
+      long highest = LatencyHistogram.highestInBucket(bucket);
+      Assert.assertEquals(bucket, LatencyHistogram.bucketOf(previous + 1));
+      Assert.assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+      previous = highest;
+    }
+  }
+
+  @Test
+  public void percentilesWithinBucketPrecision() {
+    Random random = new Random(20);
+    long[] values = new long[100_000];
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < values.length; i++) {
+      // Roughly log-normal, like real latencies.
+      values[i] = (long) Math.exp(10 + 1.5 * random.nextGaussian());
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+
+    Assert.assertEquals(values.length, histogram.count());
+    for (double percentile : new double[] {50, 99, 99.9, 100}) {
+      long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+      long actual = histogram.percentile(percentile);
+      Assert.assertTrue(actual >= exact);
+      Assert.assertTrue(actual <= exact + exact / 16 + 1);
+    }
+  }
+
+  @Test
+  public void concurrentRecordsAreAllCounted() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    for (int thread = 0; thread < 4; thread++) {
+      pool.execute(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          histogram.record(i);
+        }
+      });
+    }
+    pool.shutdown();
+    Assert.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+    Assert.assertEquals(40_000, histogram.count());
+    Assert.assertEquals(0, new LatencyHistogram().percentile(99));
+  }
+}
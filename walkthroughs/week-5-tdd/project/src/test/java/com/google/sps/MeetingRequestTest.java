@@ -44,4 +44,39 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void requestDoesNotInternNames() {
+    String stranger = "Person never in any event";
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, stranger), DURATION_1_HOUR);
+    request.addOptionalAttendee(stranger + " either");
+    new FindMeetingQuery().queryWithOptionalAttendees(Collections.emptyList(), request);
+
+    Assert.assertEquals(-1, AttendeeIds.find(stranger));
+    Assert.assertEquals(-1, AttendeeIds.find(stranger + " either"));
+  }
+
+  @Test
+  public void unknownOptionalAttendeeIsFree() {
+    // C is busy all day, but B has never had an event and so can make any time.
+    Event event = new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A, PERSON_C));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee("Person B, who has no events");
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().queryWithOptionalAttendees(Arrays.asList(event), request);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), actual);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullAttendeeIsRejected() {
+    new MeetingRequest(Arrays.asList(PERSON_A, null), DURATION_1_HOUR);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullOptionalAttendeeIsRejected() {
+    new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR).addOptionalAttendee(null);
+  }
+}
@@ -0,0 +1,333 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers meeting requests by looking at every minute of the day. Far too slow for real use, but
+ * simple enough to be plainly right, so the optimized schedulers are checked against it. It is
+ * public so that the benchmarks can check their answers too.
+ *
+ * <p>Optional attendees are tracked as bits of a {@code long}, so a request may have at most 63
+ * of them. A day is looked at unless the oracle is made for a window of epoch minutes, in which
+ * case minutes are counted from the start of the window.
+ */
+public final class MinuteOracle {
+  private static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  // Where minute 0 is, in minutes since the epoch, and how many minutes there are.
+  private final int offset;
+  private final int minutes;
+
+  // Whether any mandatory attendee is busy, by minute.
+  private final boolean[] mandatoryBusy;
+
+  // Which optional attendees are busy, by minute, with bit i for the i-th optional attendee.
+  private final long[] optionalBusy;
+
+  private final MeetingRequest request;
+  private final int duration;
+  private final int optionalCount;
+  private final Map<String, Long> optionalBits = new HashMap<>();
+
+  /**
+   * Marks the busy minutes of every attendee of {@code request} in {@code events}.
+   */
+  public MinuteOracle(Collection<Event> events, MeetingRequest request) {
+    this(0, MINUTES, request);
+    for (Event event : events) {
+      mark(event.getAttendees(), event.getWhen().start(), event.getWhen().end());
+    }
+  }
+
+  /**
+   * Marks the busy minutes inside {@code window} of every attendee of {@code request} in
+   * {@code events}. Occurrences of recurring events are passed as events of their own.
+   */
+  public MinuteOracle(
+      EpochTimeRange window, Collection<DatedEvent> events, MeetingRequest request) {
+    this(window.start(), window.duration(), request);
+    for (DatedEvent event : events) {
+      mark(event.getAttendees(), event.getWhen().start(), event.getWhen().end());
+    }
+  }
+
+  private MinuteOracle(int offset, int minutes, MeetingRequest request) {
+    this.offset = offset;
+    this.minutes = minutes;
+    this.mandatoryBusy = new boolean[minutes];
+    this.optionalBusy = new long[minutes];
+    this.request = request;
+    this.duration = (int) Math.min(request.getDuration(), minutes + 1);
+    this.optionalCount = request.getOptionalAttendees().size();
+    if (optionalCount >= Long.SIZE) {
+      throw new IllegalArgumentException("Too many optional attendees: " + optionalCount);
+    }
+
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalBits.put(attendee, 1L << optionalBits.size());
+    }
+  }
+
+  /** Marks {@code attendees} busy from epoch minute {@code start} up to {@code end}. */
+  private void mark(Collection<String> attendees, int start, int end) {
+    boolean mandatory = false;
+    long bits = 0;
+    for (String attendee : attendees) {
+      mandatory |= request.getAttendees().contains(attendee);
+      bits |= optionalBits.getOrDefault(attendee, 0L);
+    }
+    int from = Math.max(start - offset, 0);
+    int to = Math.min(end - offset, minutes);
+    for (int minute = from; minute < to; minute++) {
+      mandatoryBusy[minute] |= mandatory;
+      optionalBusy[minute] |= bits;
+    }
+  }
+
+  /**
+   * Returns what {@link FindMeetingQuery#query(Collection, MeetingRequest)} should.
+   */
+  public List<TimeRange> query() {
+    return Intervals.toTimeRanges(gaps());
+  }
+
+  /**
+   * Returns what {@link FindMeetingQuery#queryWithOptionalAttendees(Collection, MeetingRequest)}
+   * should: the maximal windows of at least the meeting's length in which no more optional
+   * attendees are busy than in the best slot.
+   */
+  public List<TimeRange> queryWithOptionalAttendees() {
+    return Intervals.toTimeRanges(optionalWindows());
+  }
+
+  /**
+   * Returns what {@link FindMeetingQuery#queryWindow(AttendeeIndex, RecurringEventIndex,
+   * MeetingRequest, EpochTimeRange, Map)} should for the window this oracle was made for, with
+   * no working hours: the same as {@link #queryWithOptionalAttendees}, in epoch minutes.
+   */
+  public List<EpochTimeRange> queryWindow() {
+    List<EpochTimeRange> result = new ArrayList<>();
+    for (long window : optionalWindows()) {
+      result.add(EpochTimeRange.fromStartEnd(
+          offset + Intervals.start(window), offset + Intervals.end(window)));
+    }
+    return result;
+  }
+
+  private long[] optionalWindows() {
+    long[] gaps = gaps();
+    if (optionalCount == 0 || gaps.length == 0) {
+      return gaps;
+    }
+
+    int fewest = optionalCount;
+    for (long gap : gaps) {
+      for (int start = Intervals.start(gap); start + duration <= Intervals.end(gap); start++) {
+        fewest = Math.min(fewest, busyCount(start, start + duration));
+      }
+    }
+    if (fewest == optionalCount && request.getAttendees().isEmpty()) {
+      return Intervals.EMPTY;
+    }
+
+    // A window is maximal when it cannot grow to the left, that is when the window from a minute
+    // earlier could not reach as far.
+    long[] result = new long[minutes];
+    int count = 0;
+    for (long gap : gaps) {
+      int previousEnd = Integer.MIN_VALUE;
+      for (int start = Intervals.start(gap); start < Intervals.end(gap); start++) {
+        long busy = 0;
+        int end = start;
+        while (end < Intervals.end(gap)
+            && Long.bitCount(busy | optionalBusy[end]) <= fewest) {
+          busy |= optionalBusy[end++];
+        }
+        if (end > previousEnd && end - start >= duration) {
+          result[count++] = Intervals.of(start, end);
+        }
+        previousEnd = end;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Returns what {@link FindMeetingQuery#queryWithMinimumOptional} should for
+   * {@code minOptional}: each run of start minutes with the same number of optional attendees
+   * free, as a slot from the first start to the end of a meeting at the last.
+   */
+  public List<AttendanceSlot> queryWithMinimumOptional(int minOptional) {
+    List<AttendanceSlot> result = new ArrayList<>();
+    int runStart = 0;
+    int runFree = -1;
+    for (int start = 0; start <= minutes; start++) {
+      int free = -1;
+      if (start + duration <= minutes && isMandatoryFree(start, start + duration)) {
+        free = optionalCount - busyCount(start, start + duration);
+      }
+      if (free != runFree) {
+        if (runFree >= minOptional) {
+          result.add(new AttendanceSlot(
+              TimeRange.fromStartEnd(runStart, start - 1 + duration, false), runFree));
+        }
+        runStart = start;
+        runFree = free;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns what {@link FindMeetingQuery#queryTopK(Collection, MeetingRequest, int, TimeRange)}
+   * should for a {@code k} of 1: the valid slot that comes first in {@link #bestFirst}, tried at
+   * every start minute of the day.
+   */
+  public List<TimeRange> queryBest(TimeRange preferredHours) {
+    List<TimeRange> result = new ArrayList<>();
+    Comparator<TimeRange> order = bestFirst(preferredHours);
+    for (int start = 0; start + duration <= minutes; start++) {
+      TimeRange slot = TimeRange.fromStartDuration(start, duration);
+      if (isValidSlot(slot) && (result.isEmpty() || order.compare(slot, result.get(0)) < 0)) {
+        result.clear();
+        result.add(slot);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether {@code slot} may be among the answers of {@link FindMeetingQuery#queryTopK}:
+   * it is exactly as long as the meeting, every mandatory attendee is free throughout, and it is
+   * not a slot none of the optional attendees can make in a request with only optional ones.
+   */
+  public boolean isValidSlot(TimeRange slot) {
+    if (slot.duration() != request.getDuration() || slot.start() < 0 || slot.end() > minutes
+        || !isMandatoryFree(slot.start(), slot.end())) {
+      return false;
+    }
+    return !request.getAttendees().isEmpty() || optionalCount == 0
+        || busyCount(slot.start(), slot.end()) < optionalCount;
+  }
+
+  /**
+   * Returns the order {@link FindMeetingQuery#queryTopK} ranks slots in: fewest optional attendees
+   * busy, then fewest minutes outside {@code preferredHours}, then earliest start.
+   */
+  public Comparator<TimeRange> bestFirst(TimeRange preferredHours) {
+    return Comparator.<TimeRange>comparingInt(slot -> busyCount(slot.start(), slot.end()))
+        .thenComparingInt(slot -> slot.duration() - overlap(slot, preferredHours))
+        .thenComparingInt(TimeRange::start);
+  }
+
+  /**
+   * Returns what {@link FindMeetingQuery#queryWithRoom} should for {@code rooms}, booked as given
+   * by {@code bookings}. Each suitable room gives the runs of minutes in which it and every
+   * mandatory attendee are free; runs lying inside another run are dropped, and of equal runs the
+   * one in the smallest room, then the first by name, is kept.
+   */
+  public List<RoomSlot> queryWithRoom(
+      Collection<Room> rooms, Map<String, List<TimeRange>> bookings) {
+    List<Room> suitable = new ArrayList<>();
+    for (Room room : rooms) {
+      if (room.getCapacity() >= request.getRoomCapacity()
+          && room.getEquipment().containsAll(request.getRoomEquipment())) {
+        suitable.add(room);
+      }
+    }
+    suitable.sort(Comparator.comparingInt(Room::getCapacity).thenComparing(Room::getName));
+
+    List<RoomSlot> runs = new ArrayList<>();
+    for (Room room : suitable) {
+      boolean[] booked = new boolean[minutes];
+      for (TimeRange booking : bookings.getOrDefault(room.getName(), Collections.emptyList())) {
+        for (int minute = booking.start(); minute < booking.end(); minute++) {
+          booked[minute] = true;
+        }
+      }
+      int start = 0;
+      for (int minute = 0; minute <= minutes; minute++) {
+        if (minute == minutes || booked[minute] || mandatoryBusy[minute]) {
+          if (minute - start >= duration) {
+            runs.add(new RoomSlot(TimeRange.fromStartEnd(start, minute, false), room.getName()));
+          }
+          start = minute + 1;
+        }
+      }
+    }
+
+    // Runs are in room order, so an equal run seen earlier is in a better room.
+    List<RoomSlot> result = new ArrayList<>();
+    for (int i = 0; i < runs.size(); i++) {
+      TimeRange when = runs.get(i).getWhen();
+      boolean inside = false;
+      for (int j = 0; j < runs.size() && !inside; j++) {
+        TimeRange other = runs.get(j).getWhen();
+        inside = other.equals(when) ? j < i : other.contains(when);
+      }
+      if (!inside) {
+        result.add(runs.get(i));
+      }
+    }
+    result.sort(Comparator.comparingInt(slot -> slot.getWhen().start()));
+    return result;
+  }
+
+  private static int overlap(TimeRange slot, TimeRange hours) {
+    return Math.max(0, Math.min(slot.end(), hours.end()) - Math.max(slot.start(), hours.start()));
+  }
+
+  /** Returns the runs of minutes free for every mandatory attendee that fit the meeting. */
+  private long[] gaps() {
+    List<TimeRange> gaps = new ArrayList<>();
+    int start = 0;
+    for (int minute = 0; minute <= minutes; minute++) {
+      if (minute == minutes || mandatoryBusy[minute]) {
+        if (minute > start && minute - start >= duration) {
+          gaps.add(TimeRange.fromStartEnd(start, minute, false));
+        }
+        start = minute + 1;
+      }
+    }
+    return Intervals.fromTimeRanges(gaps);
+  }
+
+  private boolean isMandatoryFree(int from, int to) {
+    for (int minute = from; minute < to; minute++) {
+      if (mandatoryBusy[minute]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Counts the optional attendees busy at some minute from {@code from} up to {@code to}. */
+  private int busyCount(int from, int to) {
+    long busy = 0;
+    for (int minute = from; minute < to; minute++) {
+      busy |= optionalBusy[minute];
+    }
+    return Long.bitCount(busy);
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class NameTrieTest {
+  // "Aa" and "BB" have the same hash code, as does any string built from them.
+  private static final String[] SAME_HASH = {"AaAa", "AaBB", "BBAa", "BBBB"};
+
+  @Test
+  public void matchesHashMapAfterRandomChanges() {
+    Random random = new Random(18);
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      names.add("Person " + i);
+    }
+    for (String name : SAME_HASH) {
+      names.add(name);
+    }
+
+    Map<String, Integer> expected = new HashMap<>();
+    NameTrie<Integer> trie = NameTrie.empty();
+    for (int round = 0; round < 5000; round++) {
+      String name = names.get(random.nextInt(names.size()));
+      if (random.nextInt(3) == 0) {
+        expected.remove(name);
+        trie = trie.without(name);
+      } else {
+        expected.put(name, round);
+        trie = trie.with(name, round);
+      }
+      Assert.assertEquals(expected.size(), trie.size());
+      Assert.assertEquals(expected.get(name), trie.get(name));
+    }
+
+    Map<String, Integer> actual = new HashMap<>();
+    trie.forEach(actual::put);
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void earlierVersionsAreUnchanged() {
+    NameTrie<Integer> before = NameTrie.<Integer>empty().with(SAME_HASH[0], 1);
+    NameTrie<Integer> after = before.with(SAME_HASH[1], 2).without(SAME_HASH[0]);
+
+    Assert.assertEquals(Integer.valueOf(1), before.get(SAME_HASH[0]));
+    Assert.assertNull(before.get(SAME_HASH[1]));
+    Assert.assertNull(after.get(SAME_HASH[0]));
+    Assert.assertEquals(Integer.valueOf(2), after.get(SAME_HASH[1]));
+    Assert.assertSame(after, after.without("Nobody"));
+  }
+}
@@ -0,0 +1,146 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int DURATION_30_MINUTES = 30;
+
+  private AttendeeIndex index;
+  private QueryCache cache;
+
+  @Before
+  public void setUp() {
+    index = new AttendeeIndex();
+    cache = new QueryCache(index, 2);
+  }
+
+  @Test
+  public void sameQuestionIsAnsweredOnce() {
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> first = cache.queryWithOptionalAttendees(request);
+    Collection<TimeRange> second = cache.queryWithOptionalAttendees(
+        new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), DURATION_30_MINUTES));
+
+    Assert.assertSame(first, second);
+  }
+
+  @Test
+  public void onlySearchedAnswersAreTimed() {
+    QueryMetrics metrics = new QueryMetrics();
+    QueryCache timed = new QueryCache(index, 2, metrics);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    for (int i = 0; i < 2; i++) {
+      timed.queryWithOptionalAttendees(request);
+    }
+
+    for (QueryMetrics.Phase phase : Arrays.asList(QueryMetrics.Phase.FILTER,
+        QueryMetrics.Phase.SORT_MERGE, QueryMetrics.Phase.GAPS)) {
+      Assert.assertEquals(1, metrics.get(phase).count());
+    }
+    Assert.assertEquals(0, metrics.get(QueryMetrics.Phase.PARSE).count());
+  }
+
+  @Test
+  public void changeForAttendeeRetiresAnswer() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    Collection<TimeRange> before = cache.queryWithOptionalAttendees(request);
+
+    index.add(event(PERSON_B));
+    Collection<TimeRange> after = cache.queryWithOptionalAttendees(request);
+
+    Assert.assertNotSame(before, after);
+    Assert.assertEquals(new FindMeetingQuery().queryWithOptionalAttendees(index, request), after);
+  }
+
+  @Test
+  public void changeForSomeoneElseKeepsAnswer() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    Collection<TimeRange> before = cache.queryWithOptionalAttendees(request);
+
+    index.add(event(PERSON_C));
+
+    Assert.assertSame(before, cache.queryWithOptionalAttendees(request));
+  }
+
+  @Test
+  public void leastRecentlyUsedIsDropped() {
+    MeetingRequest a = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest b = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest c = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+    Collection<TimeRange> answerA = cache.queryWithOptionalAttendees(a);
+    Collection<TimeRange> answerB = cache.queryWithOptionalAttendees(b);
+
+    cache.queryWithOptionalAttendees(a);
+    cache.queryWithOptionalAttendees(c);
+
+    Assert.assertSame(answerA, cache.queryWithOptionalAttendees(a));
+    Assert.assertNotSame(answerB, cache.queryWithOptionalAttendees(b));
+  }
+
+  @Test
+  public void topSlotsAreCachedPerK() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    index.add(event(PERSON_B));
+
+    List<TimeRange> top2 = cache.queryTopK(request, 2, TimeRange.WHOLE_DAY);
+    List<TimeRange> top3 = cache.queryTopK(request, 3, TimeRange.WHOLE_DAY);
+
+    Assert.assertSame(top2, cache.queryTopK(request, 2, TimeRange.WHOLE_DAY));
+    Assert.assertEquals(
+        new FindMeetingQuery().queryTopK(index, request, 2, TimeRange.WHOLE_DAY), top2);
+    Assert.assertEquals(
+        new FindMeetingQuery().queryTopK(index, request, 3, TimeRange.WHOLE_DAY), top3);
+  }
+
+  @Test
+  public void changeForAttendeeRetiresTopSlots() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    List<TimeRange> before = cache.queryTopK(request, 1, TimeRange.WHOLE_DAY);
+
+    index.add(event(PERSON_A));
+    List<TimeRange> after = cache.queryTopK(request, 1, TimeRange.WHOLE_DAY);
+
+    Assert.assertNotSame(before, after);
+    Assert.assertEquals(
+        new FindMeetingQuery().queryTopK(index, request, 1, TimeRange.WHOLE_DAY), after);
+  }
+
+  private static Event event(String attendee) {
+    return new Event("Event", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        Arrays.asList(attendee));
+  }
+}
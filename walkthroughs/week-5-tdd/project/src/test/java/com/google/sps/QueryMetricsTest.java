@@ -0,0 +1,56 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryMetricsTest {
+  private static final long PAUSE_MILLIS = 50;
+
+  @Test
+  public void lapCountsTimeSincePreviousLap() throws InterruptedException {
+    QueryMetrics metrics = new QueryMetrics();
+    QueryMetrics.Timer timer = metrics.start();
+    timer.lap(QueryMetrics.Phase.PARSE);
+    Thread.sleep(PAUSE_MILLIS);
+    timer.lap(QueryMetrics.Phase.SERIALIZE);
+    timer.finish();
+
+    Assert.assertTrue(metrics.get(QueryMetrics.Phase.SERIALIZE).percentile(100)
+        >= TimeUnit.MILLISECONDS.toNanos(PAUSE_MILLIS) / 2);
+  }
+
+  @Test
+  public void skippedTimeIsNotCounted() throws InterruptedException {
+    QueryMetrics metrics = new QueryMetrics();
+    QueryMetrics.Timer timer = metrics.start();
+    timer.lap(QueryMetrics.Phase.PARSE);
+    // Stands in for a search that the cache times on its own.
+    Thread.sleep(PAUSE_MILLIS);
+    timer.skip();
+    timer.lap(QueryMetrics.Phase.SERIALIZE);
+    timer.finish();
+
+    Assert.assertEquals(1, metrics.get(QueryMetrics.Phase.SERIALIZE).count());
+    Assert.assertTrue(metrics.get(QueryMetrics.Phase.SERIALIZE).percentile(100)
+        < TimeUnit.MILLISECONDS.toNanos(PAUSE_MILLIS) / 2);
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryWindowTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+  private static final ZoneId LONDON = ZoneId.of("Europe/London");
+
+  private static final LocalTime TIME_0900AM = LocalTime.of(9, 0);
+  private static final LocalTime TIME_0500PM = LocalTime.of(17, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+  private static final int DURATION_10_HOURS = 600;
+
+  private FindMeetingQuery query;
+  private AttendeeIndex index;
+
+  @Before
+  public void setUp() {
+    query = new FindMeetingQuery();
+    index = new AttendeeIndex();
+  }
+
+  @Test
+  public void eventsSpanningMidnightBlockBothDays() {
+    index.add(new DatedEvent("Late night", range("2020-01-06T22:00:00Z", "2020-01-07T02:00:00Z"),
+        Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_10_HOURS);
+
+    List<EpochTimeRange> actual = query.queryWindow(index, request,
+        range("2020-01-06T00:00:00Z", "2020-01-08T00:00:00Z"), Collections.emptyMap());
+    List<EpochTimeRange> expected =
+        Arrays.asList(range("2020-01-06T00:00:00Z", "2020-01-06T22:00:00Z"),
+            range("2020-01-07T02:00:00Z", "2020-01-08T00:00:00Z"));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void workingHoursInDifferentTimeZonesOverlap() {
+    // New York works 14:00 to 22:00 UTC and London works 09:00 to 17:00 UTC in January, so they
+    // share 14:00 to 17:00 UTC on weekdays. B is busy for the first two hours of that on Monday.
+    index.add(new DatedEvent("Sync", range("2020-01-06T14:00:00Z", "2020-01-06T16:00:00Z"),
+        Arrays.asList(PERSON_B)));
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, WorkingHours.weekdays(NEW_YORK, TIME_0900AM, TIME_0500PM));
+    workingHours.put(PERSON_B, WorkingHours.weekdays(LONDON, TIME_0900AM, TIME_0500PM));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR);
+
+    // Monday the 6th through the end of Sunday the 12th.
+    List<EpochTimeRange> actual = query.queryWindow(
+        index, request, range("2020-01-06T00:00:00Z", "2020-01-13T00:00:00Z"), workingHours);
+    List<EpochTimeRange> expected =
+        Arrays.asList(range("2020-01-06T16:00:00Z", "2020-01-06T17:00:00Z"),
+            range("2020-01-07T14:00:00Z", "2020-01-07T17:00:00Z"),
+            range("2020-01-08T14:00:00Z", "2020-01-08T17:00:00Z"),
+            range("2020-01-09T14:00:00Z", "2020-01-09T17:00:00Z"),
+            range("2020-01-10T14:00:00Z", "2020-01-10T17:00:00Z"));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void workingHoursFollowDaylightSaving() {
+    // New York moved its clocks forward on Sunday 2020-03-08.
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, WorkingHours.weekdays(NEW_YORK, TIME_0900AM, TIME_0500PM));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    List<EpochTimeRange> actual = query.queryWindow(
+        index, request, range("2020-03-06T00:00:00Z", "2020-03-10T00:00:00Z"), workingHours);
+    List<EpochTimeRange> expected =
+        Arrays.asList(range("2020-03-06T14:00:00Z", "2020-03-06T22:00:00Z"),
+            range("2020-03-09T13:00:00Z", "2020-03-09T21:00:00Z"));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void recurringEventsBlockEachDay() {
+    RecurringEventIndex recurring = new RecurringEventIndex();
+    recurring.add(new RecurringEvent("Standup", LONDON, LocalDate.of(2019, 1, 1), TIME_0900AM,
+        DURATION_1_HOUR, Recurrence.daily(), Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_10_HOURS);
+
+    List<EpochTimeRange> actual = query.queryWindow(index, recurring, request,
+        range("2020-01-06T00:00:00Z", "2020-01-08T00:00:00Z"), Collections.emptyMap());
+    List<EpochTimeRange> expected =
+        Arrays.asList(range("2020-01-06T10:00:00Z", "2020-01-07T09:00:00Z"),
+            range("2020-01-07T10:00:00Z", "2020-01-08T00:00:00Z"));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void tooLongForWindow() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_10_HOURS);
+
+    List<EpochTimeRange> actual = query.queryWindow(index, request,
+        range("2020-01-06T00:00:00Z", "2020-01-06T09:00:00Z"), Collections.emptyMap());
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+
+  private static EpochTimeRange range(String start, String end) {
+    return EpochTimeRange.fromInstants(Instant.parse(start), Instant.parse(end));
+  }
+}
@@ -0,0 +1,139 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final ZoneId UTC = ZoneId.of("UTC");
+  private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+  private static final LocalTime TIME_0900AM = LocalTime.of(9, 0);
+  private static final LocalTime TIME_0915AM = LocalTime.of(9, 15);
+  private static final LocalTime TIME_1100PM = LocalTime.of(23, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_2_HOURS = 120;
+
+  // Monday.
+  private static final LocalDate JAN_6 = LocalDate.of(2020, 1, 6);
+
+  @Test
+  public void weekdaysOnlyInsideWindow() {
+    RecurringEvent standup = new RecurringEvent("Standup", UTC, JAN_6, TIME_0900AM,
+        DURATION_30_MINUTES,
+        Recurrence.onDays(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY)),
+        Arrays.asList(PERSON_A));
+
+    // Wednesday the 8th through the end of Monday the 13th.
+    List<EpochTimeRange> actual = occurrences(
+        standup, range("2020-01-08T00:00:00Z", "2020-01-14T00:00:00Z"));
+
+    Assert.assertEquals(Arrays.asList(range("2020-01-08T09:00:00Z", "2020-01-08T09:30:00Z"),
+        range("2020-01-09T09:00:00Z", "2020-01-09T09:30:00Z"),
+        range("2020-01-10T09:00:00Z", "2020-01-10T09:30:00Z"),
+        range("2020-01-13T09:00:00Z", "2020-01-13T09:30:00Z")), actual);
+  }
+
+  @Test
+  public void exceptionsAndLastDateAreSkipped() {
+    RecurringEvent standup = new RecurringEvent("Standup", UTC, JAN_6, TIME_0900AM,
+        DURATION_30_MINUTES,
+        Recurrence.daily().except(JAN_6.plusDays(1)).until(JAN_6.plusDays(2)),
+        Arrays.asList(PERSON_A));
+
+    List<EpochTimeRange> actual = occurrences(
+        standup, range("2020-01-01T00:00:00Z", "2020-02-01T00:00:00Z"));
+
+    Assert.assertEquals(Arrays.asList(range("2020-01-06T09:00:00Z", "2020-01-06T09:30:00Z"),
+        range("2020-01-08T09:00:00Z", "2020-01-08T09:30:00Z")), actual);
+  }
+
+  @Test
+  public void occurrenceStartedBeforeWindowIsIncluded() {
+    RecurringEvent lateCall = new RecurringEvent("Late call", UTC, JAN_6, TIME_1100PM,
+        DURATION_2_HOURS, Recurrence.weekly(DayOfWeek.MONDAY), Arrays.asList(PERSON_A));
+
+    List<EpochTimeRange> actual = occurrences(
+        lateCall, range("2020-01-07T00:00:00Z", "2020-01-08T00:00:00Z"));
+
+    Assert.assertEquals(
+        Arrays.asList(range("2020-01-06T23:00:00Z", "2020-01-07T01:00:00Z")), actual);
+  }
+
+  @Test
+  public void localTimeKeptAcrossDaylightSaving() {
+    // New York moved its clocks forward on Sunday 2020-03-08.
+    RecurringEvent standup = new RecurringEvent("Standup", NEW_YORK, JAN_6, TIME_0900AM,
+        DURATION_30_MINUTES, Recurrence.daily(), Arrays.asList(PERSON_A));
+
+    List<EpochTimeRange> actual = occurrences(
+        standup, range("2020-03-07T12:00:00Z", "2020-03-09T12:00:00Z"));
+
+    Assert.assertEquals(Arrays.asList(range("2020-03-07T14:00:00Z", "2020-03-07T14:30:00Z"),
+        range("2020-03-08T13:00:00Z", "2020-03-08T13:30:00Z")), actual);
+  }
+
+  @Test
+  public void seriesOfOneAttendeeAreMerged() {
+    RecurringEventIndex index = new RecurringEventIndex();
+    index.add(new RecurringEvent("Standup", UTC, JAN_6, TIME_0900AM, DURATION_30_MINUTES,
+        Recurrence.daily(), Arrays.asList(PERSON_A)));
+    index.add(new RecurringEvent("Review", UTC, JAN_6, TIME_0915AM, DURATION_30_MINUTES,
+        Recurrence.weekly(DayOfWeek.TUESDAY), Arrays.asList(PERSON_A)));
+
+    long[] actual =
+        index.busyIntervals(PERSON_A, range("2020-01-06T00:00:00Z", "2020-01-08T00:00:00Z"));
+
+    long[] expected = {
+        Intervals.of(minute("2020-01-06T09:00:00Z"), minute("2020-01-06T09:30:00Z")),
+        Intervals.of(minute("2020-01-07T09:00:00Z"), minute("2020-01-07T09:45:00Z"))};
+    Assert.assertArrayEquals(expected, actual);
+  }
+
+  private static List<EpochTimeRange> occurrences(RecurringEvent event, EpochTimeRange window) {
+    List<EpochTimeRange> result = new ArrayList<>();
+    for (PrimitiveIterator.OfLong it = event.occurrences(window); it.hasNext(); ) {
+      long interval = it.nextLong();
+      result.add(EpochTimeRange.fromStartEnd(Intervals.start(interval), Intervals.end(interval)));
+    }
+    return result;
+  }
+
+  private static int minute(String instant) {
+    return EpochTimeRange.toEpochMinute(Instant.parse(instant));
+  }
+
+  private static EpochTimeRange range(String start, String end) {
+    return EpochTimeRange.fromInstants(Instant.parse(start), Instant.parse(end));
+  }
+}
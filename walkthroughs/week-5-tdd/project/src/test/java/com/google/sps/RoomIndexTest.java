@@ -0,0 +1,138 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomIndexTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final String SMALL = "Small room";
+  private static final String LARGE = "Large room";
+  private static final String PROJECTOR = "Projector";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+  private static final int DURATION_2_HOURS = 120;
+
+  private AttendeeIndex index;
+  private RoomIndex rooms;
+
+  @Before
+  public void setUp() {
+    index = new AttendeeIndex();
+    rooms = new RoomIndex(Arrays.asList(
+        new Room(LARGE, 10, Arrays.asList(PROJECTOR)),
+        new Room(SMALL, 4, Collections.emptyList())));
+  }
+
+  @Test
+  public void smallestFreeRoomIsPicked() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.requireRoom(2, Collections.emptyList());
+
+    List<RoomSlot> actual = new FindMeetingQuery().queryWithRoom(index, rooms, request);
+
+    Assert.assertEquals(Arrays.asList(new RoomSlot(TimeRange.WHOLE_DAY, SMALL)), actual);
+  }
+
+  @Test
+  public void capacityAndEquipmentRuleOutRooms() {
+    rooms.book(LARGE, TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.requireRoom(2, Arrays.asList(PROJECTOR));
+
+    List<RoomSlot> actual = new FindMeetingQuery().queryWithRoom(index, rooms, request);
+
+    Assert.assertEquals(Arrays.asList(
+        new RoomSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false), LARGE),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true), LARGE)),
+        actual);
+
+    request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.requireRoom(11, Collections.emptyList());
+    Assert.assertEquals(Collections.emptyList(),
+        new FindMeetingQuery().queryWithRoom(index, rooms, request));
+  }
+
+  @Test
+  public void roomMustStayFreeForWholeMeeting() {
+    // Each room is free for one of the two hours, but neither is free for both.
+    rooms.book(SMALL, TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false));
+    rooms.book(SMALL, TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+    rooms.book(LARGE, TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false));
+    rooms.book(LARGE, TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    index.add(new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM,
+        false), Arrays.asList(PERSON_A)));
+    index.add(new Event("Event 2", TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY,
+        true), Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_2_HOURS);
+    request.requireRoom(1, Collections.emptyList());
+
+    Assert.assertEquals(Collections.emptyList(),
+        new FindMeetingQuery().queryWithRoom(index, rooms, request));
+
+    request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.requireRoom(1, Collections.emptyList());
+    Assert.assertEquals(Arrays.asList(
+        new RoomSlot(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), LARGE),
+        new RoomSlot(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), SMALL)),
+        new FindMeetingQuery().queryWithRoom(index, rooms, request));
+  }
+
+  @Test
+  public void cancelledBookingFreesRoom() {
+    TimeRange morning = TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1100AM, false);
+    rooms.book(SMALL, morning);
+    Assert.assertEquals(Arrays.asList(morning), rooms.getBookings(SMALL));
+
+    Assert.assertTrue(rooms.cancel(SMALL, morning));
+    Assert.assertFalse(rooms.cancel(SMALL, morning));
+    Assert.assertEquals(Collections.emptyList(), rooms.getBookings(SMALL));
+  }
+
+  @Test
+  public void overlappingBookingsAreMergedUntilCancelled() {
+    TimeRange nine = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+    TimeRange nineToEleven = TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false);
+    rooms.book(SMALL, nineToEleven);
+    rooms.book(SMALL, nine);
+    rooms.book(SMALL, nine);
+    Assert.assertEquals(Arrays.asList(nineToEleven), rooms.getBookings(SMALL));
+
+    Assert.assertTrue(rooms.cancel(SMALL, nineToEleven));
+    Assert.assertTrue(rooms.cancel(SMALL, nine));
+
+    Assert.assertEquals(Arrays.asList(nine), rooms.getBookings(SMALL));
+    Assert.assertEquals(Collections.emptyList(), rooms.getBookings(LARGE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownRoomCannotBeBooked() {
+    rooms.book("Nowhere", TimeRange.WHOLE_DAY);
+  }
+}
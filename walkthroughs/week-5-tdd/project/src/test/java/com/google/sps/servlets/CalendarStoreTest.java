@@ -0,0 +1,63 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Event;
+import com.google.sps.EventStore;
+import com.google.sps.Events;
+import com.google.sps.FileEventStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarStoreTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void keptCalendarIsCompactedOnceLogIsLong() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    List<Event> events = Arrays.asList(Events.events);
+    try (EventStore store = CalendarStore.open(directory.toString(), 100)) {
+      for (Event event : events) {
+        store.add(event);
+      }
+    }
+
+    Assert.assertTrue(Files.exists(directory.resolve("events.snapshot")));
+    Assert.assertTrue(Files.size(directory.resolve("events.log")) <= 100);
+    try (EventStore store =
+        CalendarStore.open(directory.toString(), FileEventStore.DEFAULT_COMPACT_AFTER)) {
+      Assert.assertEquals(events, new ArrayList<>(store.getEvents()));
+    }
+  }
+
+  @Test
+  public void withoutDirectorySampleEventsAreServed() throws IOException {
+    try (EventStore store = CalendarStore.open(null, FileEventStore.DEFAULT_COMPACT_AFTER)) {
+      Assert.assertEquals(Arrays.asList(Events.events), new ArrayList<>(store.getEvents()));
+    }
+  }
+}
@@ -0,0 +1,47 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.CalendarJson;
+import com.google.sps.MeetingRequest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryServletTest {
+  @Test
+  public void requestWithoutRoomIsServed() {
+    MeetingRequest request = CalendarJson.gson().fromJson("{\"duration\":30,"
+        + "\"attendees\":[\"Person A\"],\"room_capacity\":0,\"room_equipment\":[]}",
+        MeetingRequest.class);
+
+    Assert.assertFalse(QueryServlet.asksForRoom(request));
+  }
+
+  @Test
+  public void requestForRoomIsTurnedDown() {
+    MeetingRequest bigRoom = CalendarJson.gson().fromJson(
+        "{\"duration\":30,\"attendees\":[],\"room_capacity\":8}", MeetingRequest.class);
+    MeetingRequest projector = CalendarJson.gson().fromJson(
+        "{\"duration\":30,\"attendees\":[],\"room_equipment\":[\"projector\"]}",
+        MeetingRequest.class);
+
+    Assert.assertTrue(QueryServlet.asksForRoom(bigRoom));
+    Assert.assertTrue(QueryServlet.asksForRoom(projector));
+  }
+}